@@ -32,9 +32,13 @@ import som.interpreter.SomLanguage;
 import som.interpreter.TruffleCompiler;
 import som.interpreter.actors.Actor;
 import som.interpreter.actors.Actor.ActorProcessingThreadFactory;
+import som.interpreter.actors.ActorScheduler;
+import som.interpreter.actors.FarReferenceCache;
 import som.interpreter.actors.SFarReference;
 import som.interpreter.actors.SPromise;
 import som.interpreter.actors.SPromise.SResolver;
+import som.interpreter.nodes.dispatch.LookupCache;
+import som.interpreter.transactions.TxStatistics;
 import som.primitives.processes.ChannelPrimitives;
 import som.primitives.processes.ChannelPrimitives.ProcessThreadFactory;
 import som.primitives.threading.TaskThreads.ForkJoinThreadFactory;
@@ -65,10 +69,10 @@ public final class VM {
   @CompilationFinal private WebDebugger     webDebugger;
   @CompilationFinal private Profiler        truffleProfiler;
 
-  private final ForkJoinPool actorPool;
-  private final ForkJoinPool forkJoinPool;
-  private final ForkJoinPool processesPool;
-  private final ForkJoinPool threadPool;
+  private final ActorScheduler actorPool;
+  private final ForkJoinPool   forkJoinPool;
+  private final ForkJoinPool   processesPool;
+  private final ForkJoinPool   threadPool;
 
   private final boolean                  avoidExitForTesting;
   @CompilationFinal private ObjectSystem objectSystem;
@@ -88,8 +92,8 @@ public final class VM {
     this.avoidExitForTesting = avoidExitForTesting;
     options = vmOptions;
 
-    actorPool = new ForkJoinPool(VmSettings.NUM_THREADS,
-        new ActorProcessingThreadFactory(), new UncaughtExceptions(this), true);
+    actorPool = ActorScheduler.create(new ForkJoinPool(VmSettings.NUM_THREADS,
+        new ActorProcessingThreadFactory(), new UncaughtExceptions(this), true));
     processesPool = new ForkJoinPool(VmSettings.NUM_THREADS,
         new ProcessThreadFactory(), new UncaughtExceptions(this), true);
     forkJoinPool = new ForkJoinPool(VmSettings.NUM_THREADS,
@@ -196,7 +200,7 @@ public final class VM {
     graphPrinter.close();
   }
 
-  public ForkJoinPool getActorPool() {
+  public ActorScheduler getActorPool() {
     return actorPool;
   }
 
@@ -261,8 +265,14 @@ public final class VM {
   }
 
   private void shutdownPools() {
-    ForkJoinPool[] pools =
-        new ForkJoinPool[] {actorPool, processesPool, forkJoinPool, threadPool};
+    actorPool.shutdown();
+    try {
+      actorPool.awaitTermination(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+
+    ForkJoinPool[] pools = new ForkJoinPool[] {processesPool, forkJoinPool, threadPool};
 
     for (ForkJoinPool pool : pools) {
       pool.shutdown();
@@ -287,6 +297,9 @@ public final class VM {
     shutdownPools();
 
     Actor.reportStats();
+    TxStatistics.reportStats();
+    FarReferenceCache.reportStats();
+    LookupCache.reportStats();
     ActorExecutionTrace.waitForTrace();
 
     int code = errorCode;
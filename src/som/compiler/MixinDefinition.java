@@ -548,7 +548,7 @@ public final class MixinDefinition {
 
       if (forAtomic && rcvr instanceof SMutableObject &&
           getAccessType() == SlotAccess.FIELD_READ) {
-        return new CachedTxSlotRead(getAccessType(), read,
+        return new CachedTxSlotRead(getAccessType(), this,
             DispatchGuard.createSObjectCheck(rcvr), next);
       } else {
         return read;
@@ -616,7 +616,7 @@ public final class MixinDefinition {
           loc.getWriteNode(mainSlot, DispatchGuard.createSObjectCheck(rcvr), next, isSet);
 
       if (forAtomic) {
-        return new CachedTxSlotWrite(write,
+        return new CachedTxSlotWrite(mainSlot,
             DispatchGuard.createSObjectCheck(rcvr), next);
       } else {
         return write;
@@ -26,6 +26,7 @@ import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 import com.oracle.truffle.api.CompilerAsserts;
+import com.oracle.truffle.api.dsl.ImplicitCast;
 import com.oracle.truffle.api.dsl.TypeSystem;
 
 import bd.basic.nodes.DummyParent;
@@ -43,6 +44,8 @@ import som.vmobjects.SAbstractObject;
 import som.vmobjects.SArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SClass;
+import som.vmobjects.SConcatString;
+import som.vmobjects.SInt128;
 import som.vmobjects.SInvokable;
 import som.vmobjects.SObject;
 import som.vmobjects.SObjectWithClass;
@@ -51,8 +54,10 @@ import som.vmobjects.SSymbol;
 
 @TypeSystem({boolean.class,
     long.class,
+    SInt128.class,
     BigInteger.class,
     String.class,
+    SConcatString.class,
     double.class,
     SClass.class,
     SObject.class,
@@ -67,6 +72,21 @@ import som.vmobjects.SSymbol;
     Object[].class}) // Object[] is only for argument passing
 public class Types {
 
+  /**
+   * Concatenated strings can be used wherever a string is expected, by
+   * flattening them.
+   */
+  @ImplicitCast
+  public static String castConcatString(final SConcatString str) {
+    return str.toString();
+  }
+
+  /** 128-bit integers are a more compact representation of some BigIntegers. */
+  @ImplicitCast
+  public static BigInteger castInt128(final SInt128 value) {
+    return value.toBigInteger();
+  }
+
   public static SClass getClassOf(final Object obj) {
     VM.callerNeedsToBeOptimized("If this is reached on a fast path, it indicates "
         + "that it doesn't use the correct nodes or unoptimized code");
@@ -80,9 +100,9 @@ public class Types {
       } else {
         return Classes.falseClass;
       }
-    } else if (obj instanceof Long || obj instanceof BigInteger) {
+    } else if (obj instanceof Long || obj instanceof BigInteger || obj instanceof SInt128) {
       return Classes.integerClass;
-    } else if (obj instanceof String) {
+    } else if (obj instanceof String || obj instanceof SConcatString) {
       return Classes.stringClass;
     } else if (obj instanceof Double) {
       return Classes.doubleClass;
@@ -117,8 +137,8 @@ public class Types {
     if (obj == Nil.nilObject) {
       return "nil";
     }
-    if (obj instanceof String) {
-      return (String) obj;
+    if (obj instanceof String || obj instanceof SConcatString) {
+      return obj.toString();
     }
     if (obj instanceof SAbstractObject || obj instanceof Number || obj instanceof Thread) {
       return obj.toString();
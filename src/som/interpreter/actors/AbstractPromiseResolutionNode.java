@@ -1,7 +1,5 @@
 package som.interpreter.actors;
 
-import java.util.concurrent.ForkJoinPool;
-
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -21,7 +19,7 @@ import tools.concurrency.ActorExecutionTrace;
 @Instrumentable(factory = AbstractPromiseResolutionNodeWrapper.class)
 public abstract class AbstractPromiseResolutionNode extends QuaternaryExpressionNode
     implements WithContext<AbstractPromiseResolutionNode, VM> {
-  @CompilationFinal private ForkJoinPool actorPool;
+  @CompilationFinal private ActorScheduler actorPool;
 
   @Child protected WrapReferenceNode   wrapper = WrapReferenceNodeGen.create();
   @Child protected UnaryExpressionNode haltNode;
@@ -88,19 +86,14 @@ public abstract class AbstractPromiseResolutionNode extends QuaternaryExpression
           promiseValue.getPromiseId(), promiseToBeResolved.getPromiseId());
     }
 
-    synchronized (promiseValue) {
-      Resolution state = promiseValue.getResolutionStateUnsync();
-      if (SPromise.isCompleted(state)) {
-        resolvePromise(state, resolver, promiseValue.getValueUnsync(),
-            haltOnResolution);
-      } else {
-        synchronized (promiseToBeResolved) { // TODO: is this really deadlock free?
-          if (haltOnResolution || promiseValue.getHaltOnResolution()) {
-            promiseToBeResolved.enableHaltOnResolution();
-          }
-          promiseValue.addChainedPromise(promiseToBeResolved);
-        }
-      }
+    if (haltOnResolution || promiseValue.getHaltOnResolution()) {
+      promiseToBeResolved.enableHaltOnResolution();
+    }
+
+    if (!promiseValue.addChainedPromise(promiseToBeResolved)) {
+      // promiseValue is completed, its value and state are final
+      resolvePromise(promiseValue.getResolutionStateUnsync(), resolver,
+          promiseValue.getValueUnsync(), haltOnResolution);
     }
   }
 
@@ -115,7 +108,7 @@ public abstract class AbstractPromiseResolutionNode extends QuaternaryExpression
 
   public static void resolve(final Resolution type,
       final WrapReferenceNode wrapper, final SPromise promise,
-      final Object result, final Actor current, final ForkJoinPool actorPool,
+      final Object result, final Actor current, final ActorScheduler actorPool,
       final boolean haltOnResolution) {
     Object wrapped = wrapper.execute(result, promise.owner, current);
     SResolver.resolveAndTriggerListenersUnsynced(type, result, wrapped, promise,
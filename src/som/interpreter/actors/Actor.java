@@ -1,19 +1,30 @@
 package som.interpreter.actors;
 
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
 import java.util.concurrent.ForkJoinWorkerThread;
-import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import som.Output;
 import som.VM;
+import som.interpreter.SomException;
+import som.interpreter.actors.EventualMessage.DirectMessage;
+import som.interpreter.actors.SPromise.Resolution;
+import som.interpreter.actors.SPromise.SResolver;
 import som.interpreter.objectstorage.ObjectTransitionSafepoint;
 import som.primitives.ObjectPrims.IsValue;
 import som.vm.Activity;
 import som.vm.VmSettings;
+import som.vm.constants.KernelObj;
 import som.vmobjects.SAbstractObject;
 import som.vmobjects.SArray.STransferArray;
 import som.vmobjects.SObject;
@@ -45,6 +56,33 @@ import tools.debugger.entities.DynamicScopeType;
  * + - once it is executing, it goes to the actor,
  * + - grabs the current mailbox
  * + - and sequentially executes all messages
+ *
+ * mailbox
+ * - by default, the mailbox is a lock-free multi-producer/single-consumer
+ * + stack of messages, linked via {@link EventualMessage#nextInMailbox}
+ * - senders push with a CAS, and the first sender that flips the
+ * + {@link #scheduled} flag submits the executor
+ * - the executor takes the whole stack with a single atomic swap and
+ * + reverses it to restore the send order
+ * - with -Dsom.mailbox=synchronized, the original monitor-based mailbox
+ * + is used instead, which is also required for replay
+ *
+ * quantum
+ * - an executor can be limited to a number of messages and/or a time budget,
+ * + see {@link VmSettings#ACTOR_QUANTUM_MESSAGES} and
+ * + {@link VmSettings#ACTOR_QUANTUM_NANOS}
+ * - when the budget is exhausted, the executor keeps the remaining messages,
+ * + and re-enqueues itself, so that other actors get a chance to execute
+ *
+ * bounded mailbox
+ * - the mailbox can be bounded, per actor or with
+ * + {@link VmSettings#MAILBOX_CAPACITY} for all actors
+ * - senders reserve a place by incrementing {@link #enqueued}, the executor
+ * + counts executed messages in {@link #dequeued}
+ * - when the mailbox is full, the {@link MailboxOverflow} policy decides
+ * + what happens to the new message
+ * - senders to unbounded mailboxes do not count, the depth is derived from
+ * + the messages the executor took, see {@link #getMailboxDepth()}
  */
 public class Actor implements Activity {
 
@@ -68,19 +106,107 @@ public class Actor implements Activity {
   protected EventualMessage               firstMessage;
   protected ObjectBuffer<EventualMessage> mailboxExtension;
 
-  protected long               firstMessageTimeStamp;
-  protected ObjectBuffer<Long> mailboxExtensionTimeStamps;
-
   /** Flag to indicate whether there is currently a F/J task executing. */
   protected boolean isExecuting;
 
+  /**
+   * Lock-free mailbox, used when {@link VmSettings#LOCK_FREE_MAILBOX} is set.
+   * Messages are pushed as a LIFO stack, the most recent message is the head.
+   */
+  private volatile EventualMessage mailboxHead;
+
+  /**
+   * Lock-free equivalent of {@link #isExecuting}, 1 if the executor is
+   * submitted to the pool or running, 0 otherwise.
+   */
+  private volatile int scheduled;
+
+  private static final AtomicReferenceFieldUpdater<Actor, EventualMessage> MAILBOX_HEAD =
+      AtomicReferenceFieldUpdater.newUpdater(Actor.class, EventualMessage.class,
+          "mailboxHead");
+  private static final AtomicIntegerFieldUpdater<Actor> SCHEDULED =
+      AtomicIntegerFieldUpdater.newUpdater(Actor.class, "scheduled");
+
+  /**
+   * Number of messages added to a bounded mailbox, incremented by the senders.
+   * Together with {@link #dequeued}, it gives the depth of the mailbox.
+   */
+  private volatile long enqueued;
+
+  /** Number of messages taken out of the mailbox, only written by the executor. */
+  private volatile long taken;
+
+  /**
+   * Number of messages taken from the mailbox, only written by the executor.
+   * For a bounded mailbox, it counts only the messages counted in
+   * {@link #enqueued}.
+   */
+  private volatile long dequeued;
+
+  /**
+   * Number of the oldest messages the executor is going to discard, because
+   * of the {@link MailboxOverflow#DROP_OLDEST} policy.
+   */
+  private volatile int pendingDrops;
+
+  private static final AtomicLongFieldUpdater<Actor>    ENQUEUED      =
+      AtomicLongFieldUpdater.newUpdater(Actor.class, "enqueued");
+  private static final AtomicLongFieldUpdater<Actor>    TAKEN         =
+      AtomicLongFieldUpdater.newUpdater(Actor.class, "taken");
+  private static final AtomicLongFieldUpdater<Actor>    DEQUEUED      =
+      AtomicLongFieldUpdater.newUpdater(Actor.class, "dequeued");
+  private static final AtomicIntegerFieldUpdater<Actor> PENDING_DROPS =
+      AtomicIntegerFieldUpdater.newUpdater(Actor.class, "pendingDrops");
+
+  /**
+   * Maximal number of messages in the mailbox, 0 if it is unbounded.
+   * Is set before the actor gets messages.
+   */
+  private int             mailboxCapacity;
+  private MailboxOverflow overflowPolicy;
+
+  /**
+   * Senders waiting for space in the mailbox, with the
+   * {@link MailboxOverflow#BLOCK} policy. The executor unparks them.
+   */
+  private ConcurrentLinkedQueue<Thread> blockedSenders;
+
   /** Is scheduled on the pool, and executes messages to this actor. */
   protected final ExecAllMessages executor;
 
+  /**
+   * Set when the actor spawned a task or thread, which can access the
+   * actor's objects concurrently. From then on, none of its objects is
+   * considered local anymore.
+   */
+  private volatile boolean sharesMemory;
+
+  /** Far references to this actor's objects, created on first use. */
+  private volatile FarReferenceCache farReferences;
+
+  private static final AtomicReferenceFieldUpdater<Actor, FarReferenceCache> FAR_REFERENCES =
+      AtomicReferenceFieldUpdater.newUpdater(Actor.class, FarReferenceCache.class,
+          "farReferences");
+
+  /**
+   * Affinity hint for the {@link ActorScheduler.AffinityScheduler}, the worker
+   * that executed this actor last. Only written by that worker, and read
+   * racily by senders.
+   */
+  ActorScheduler.AffinityScheduler.Worker lastWorker;
+
   // used to collect absolute numbers from the threads
   private static Object statsLock          = new Object();
   private static long   numCreatedEntities = 0;
 
+  /**
+   * Turns executed and yields of this actor, only counted when
+   * {@link VmSettings#ACTOR_QUANTUM_STATS} is enabled, and only written by
+   * the thread executing the actor.
+   */
+  private long numTurns;
+  private long numYields;
+
   /**
    * Possible roles for an actor.
    */
@@ -89,9 +215,67 @@ public class Actor implements Activity {
     RECEIVER
   }
 
+  /**
+   * What to do with a message that is sent to an actor with a full mailbox.
+   * Only direct messages are bounded. Callbacks and messages sent to promises
+   * are scheduled when a promise is resolved, and are always accepted.
+   */
+  public enum MailboxOverflow {
+    /** The sending actor waits until there is space in the mailbox. */
+    BLOCK("block"),
+
+    /** The new message is discarded, its promise is never resolved. */
+    DROP_NEWEST("dropNewest"),
+
+    /** The oldest direct message that was not yet executed is discarded. */
+    DROP_OLDEST("dropOldest"),
+
+    /** The new message is discarded, and its promise is broken with a MailboxFull error. */
+    ERROR("error");
+
+    private final String name;
+
+    MailboxOverflow(final String name) {
+      this.name = name;
+    }
+
+    /**
+     * @return the policy with the given name, or null if there is none
+     */
+    public static MailboxOverflow fromName(final String name) {
+      for (MailboxOverflow p : values()) {
+        if (p.name.equals(name)) {
+          return p;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  private static final MailboxOverflow DEFAULT_OVERFLOW_POLICY;
+
+  static {
+    MailboxOverflow policy = MailboxOverflow.fromName(VmSettings.MAILBOX_OVERFLOW);
+    if (policy == null) {
+      throw new IllegalArgumentException(
+          "Unknown mailbox overflow policy: " + VmSettings.MAILBOX_OVERFLOW);
+    }
+    DEFAULT_OVERFLOW_POLICY = policy;
+  }
+
   protected Actor(final VM vm) {
     isExecuting = false;
     executor = createExecutor(vm);
+    setMailboxBound(VmSettings.MAILBOX_CAPACITY, DEFAULT_OVERFLOW_POLICY);
+
+    if (VmSettings.ACTOR_QUANTUM_STATS) {
+      QuantumStatistics.actorCreated();
+    }
   }
 
   @Override
@@ -99,6 +283,35 @@ public class Actor implements Activity {
     return ActivityType.ACTOR;
   }
 
+  public final void shareMemory() {
+    sharesMemory = true;
+  }
+
+  /**
+   * Objects created by an actor are only accessed by the thread that
+   * executes the actor, as long as it did not spawn a task or thread.
+   * Other actors get only far references to them.
+   *
+   * @return whether the object, created by this actor, is only accessible
+   *         from the current thread
+   */
+  public final boolean ownsLocally() {
+    return !sharesMemory && EventualMessage.getActorExecutingOnCurrentThread() == this;
+  }
+
+  /**
+   * @return a far reference to an object of this actor, the same one for
+   *         repeated requests, as long as it is alive
+   */
+  public final SFarReference getFarReference(final Object o) {
+    FarReferenceCache cache = farReferences;
+    if (cache == null) {
+      FAR_REFERENCES.compareAndSet(this, null, new FarReferenceCache(this));
+      cache = farReferences;
+    }
+    return cache.get(o);
+  }
+
   protected ExecAllMessages createExecutor(final VM vm) {
     return new ExecAllMessages(this, vm);
   }
@@ -140,7 +353,7 @@ public class Actor implements Activity {
         return TransferObject.transfer((SObjectWithoutFields) o, owner, this,
             transferedObjects);
       } else {
-        return new SFarReference(owner, o);
+        return owner.getFarReference(o);
       }
     }
     return o;
@@ -153,24 +366,358 @@ public class Actor implements Activity {
             "for event-loop actors. This code should never be reached.");
   }
 
+  /**
+   * Bound the mailbox of this actor. Meant to be used when the actor is
+   * created, before it gets any messages.
+   *
+   * @param capacity maximal number of messages, 0 for an unbounded mailbox
+   */
+  public final void setMailboxBound(final int capacity, final MailboxOverflow policy) {
+    assert capacity >= 0;
+    mailboxCapacity = capacity;
+    overflowPolicy = policy;
+    blockedSenders = capacity > 0 && policy == MailboxOverflow.BLOCK
+        ? new ConcurrentLinkedQueue<>() : null;
+  }
+
+  public final int getMailboxCapacity() {
+    return mailboxCapacity;
+  }
+
+  /**
+   * @return the number of messages in the mailbox, including the ones the
+   *         executor took already, but did not yet start to execute
+   */
+  public final long getMailboxDepth() {
+    // read the counters of the executor first, so that the depth is never
+    // negative, even though the counters change concurrently
+    long d = dequeued;
+    if (mailboxCapacity > 0) {
+      int drops = pendingDrops;
+      long depth = enqueued - d - drops;
+      assert depth >= 0 : "Counters of bounded mailbox drifted: " + depth;
+      return depth;
+    }
+
+    long inMailbox;
+    if (VmSettings.LOCK_FREE_MAILBOX) {
+      EventualMessage head = mailboxHead;
+      inMailbox = head == null ? 0 : head.depthInMailbox;
+    } else {
+      inMailbox = getNumberOfMessagesInSynchronizedMailbox();
+    }
+    long depth = taken - d;
+    assert depth >= 0 : "Counters of mailbox drifted: " + depth;
+    return depth + inMailbox;
+  }
+
+  private synchronized int getNumberOfMessagesInSynchronizedMailbox() {
+    if (firstMessage == null) {
+      return 0;
+    }
+    return 1 + (mailboxExtension == null ? 0 : mailboxExtension.size());
+  }
+
   /**
    * Send the give message to the actor.
    *
    * This is the main method to be used in this API.
    */
   @TruffleBoundary
-  public synchronized void send(final EventualMessage msg,
-      final ForkJoinPool actorPool) {
-    doSend(msg, actorPool);
+  public void send(final EventualMessage msg, final ActorScheduler actorPool) {
+    if (mailboxCapacity > 0 && msg instanceof DirectMessage) {
+      if (!reserveBoundedSlot(msg, actorPool)) {
+        return;
+      }
+      msg.inBoundedMailbox = true;
+    }
+
+    if (VmSettings.LOCK_FREE_MAILBOX) {
+      doSendLockFree(msg, actorPool);
+    } else {
+      synchronized (this) {
+        doSend(msg, actorPool);
+      }
+    }
   }
 
-  public synchronized void sendInitialStartMessage(final EventualMessage msg,
-      final ForkJoinPool pool) {
-    doSend(msg, pool);
+  /**
+   * Send all given messages to the actor, preserving their order.
+   * The messages are added to the mailbox in a single operation, and the
+   * executor is submitted at most once.
+   */
+  @TruffleBoundary
+  public void sendAll(final EventualMessage[] msgs, final ActorScheduler actorPool) {
+    if (msgs.length == 0) {
+      return;
+    }
+
+    if (mailboxCapacity > 0) {
+      // each message needs its own place in the bounded mailbox
+      for (EventualMessage msg : msgs) {
+        send(msg, actorPool);
+      }
+      return;
+    }
+
+    if (VmSettings.LOCK_FREE_MAILBOX) {
+      doSendAllLockFree(msgs, actorPool);
+    } else {
+      synchronized (this) {
+        doSendAll(msgs, actorPool);
+      }
+    }
+  }
+
+  public void sendInitialStartMessage(final EventualMessage msg,
+      final ActorScheduler pool) {
+    send(msg, pool);
+  }
+
+  /**
+   * Reserve a place in the bounded mailbox for the message, or apply the
+   * overflow policy, if the mailbox is full.
+   *
+   * @return true, if the message is to be added to the mailbox
+   */
+  private boolean reserveBoundedSlot(final EventualMessage msg,
+      final ActorScheduler actorPool) {
+    while (true) {
+      long e = enqueued;
+      if (e - dequeued - pendingDrops < mailboxCapacity) {
+        if (ENQUEUED.compareAndSet(this, e, e + 1)) {
+          return true;
+        }
+        continue;
+      }
+
+      switch (overflowPolicy) {
+        case BLOCK:
+          if (!awaitMailboxSpace(msg)) {
+            ENQUEUED.incrementAndGet(this);
+            return true;
+          }
+          break;
+        case DROP_NEWEST:
+          return false;
+        case DROP_OLDEST:
+          // the depth remains the same, the executor skips the oldest message.
+          // enqueued is incremented first, so that the depth is not negative
+          ENQUEUED.incrementAndGet(this);
+          PENDING_DROPS.incrementAndGet(this);
+          return true;
+        case ERROR:
+          breakPromiseOfRejected(msg, actorPool);
+          return false;
+        default:
+          throw new IllegalStateException("Unknown overflow policy: " + overflowPolicy);
+      }
+    }
+  }
+
+  /**
+   * Block the sending actor until the mailbox has space. The blocking is
+   * managed, so that the pool can compensate for the blocked worker.
+   * Actors sending to themselves, and threads that are not actors, for
+   * instance the main thread, are not blocked, because they would wait
+   * forever, or are not supposed to wait.
+   *
+   * @return false, if the sender cannot be blocked
+   */
+  private boolean awaitMailboxSpace(final EventualMessage msg) {
+    if (msg.getSender() == this
+        || !(Thread.currentThread() instanceof ActorProcessingThread)) {
+      return false;
+    }
+
+    try {
+      ForkJoinPool.managedBlock(new MailboxSpaceBlocker(this));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    return true;
+  }
+
+  private static final class MailboxSpaceBlocker implements ManagedBlocker {
+    private final Actor actor;
+
+    MailboxSpaceBlocker(final Actor actor) {
+      this.actor = actor;
+    }
+
+    /**
+     * The sender announces itself before checking the mailbox again, so that
+     * the executor cannot miss it when it takes a message.
+     */
+    @Override
+    public boolean block() {
+      Thread current = Thread.currentThread();
+      actor.blockedSenders.add(current);
+      try {
+        if (!isReleasable()) {
+          LockSupport.park(this);
+        }
+      } finally {
+        actor.blockedSenders.remove(current);
+      }
+      return isReleasable();
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return actor.getMailboxDepth() < actor.mailboxCapacity;
+    }
+  }
+
+  /**
+   * Break the promise of a message that was rejected by a full mailbox
+   * with a MailboxFull exception.
+   */
+  private static void breakPromiseOfRejected(final EventualMessage msg,
+      final ActorScheduler actorPool) {
+    SResolver resolver = msg.getResolver();
+    if (resolver == null) {
+      return;
+    }
+
+    Object error;
+    try {
+      error = KernelObj.signalException("signalMailboxFull:", msg.getSelector());
+    } catch (SomException e) {
+      error = e.getSomObject();
+    }
+
+    SPromise promise = resolver.getPromise();
+    Actor current = msg.getSender();
+    Object wrapped = promise.getOwner().wrapForUse(error, current, null);
+    SResolver.resolveAndTriggerListenersUnsynced(Resolution.ERRONEOUS, error, wrapped,
+        promise, current, actorPool, false);
+  }
+
+  /**
+   * Called by the executor for each message it takes from the mailbox.
+   *
+   * @return true, if the message is to be discarded instead of executed
+   */
+  private boolean takeMessage(final EventualMessage msg) {
+    if (mailboxCapacity == 0) {
+      DEQUEUED.lazySet(this, dequeued + 1);
+      return false;
+    }
+
+    // promise messages and callbacks do not take a place in a bounded mailbox
+    if (!msg.inBoundedMailbox) {
+      return false;
+    }
+    msg.inBoundedMailbox = false;
+
+    // a pending drop is taken before counting the message, so that the
+    // depth is not negative
+    boolean drop = takePendingDrop();
+
+    // a full fence, so that the executor sees the senders that announced
+    // themselves before reading the old count
+    DEQUEUED.incrementAndGet(this);
+
+    if (blockedSenders != null) {
+      unblockSender();
+    }
+    return drop;
+  }
+
+  private boolean takePendingDrop() {
+    int drops;
+    do {
+      drops = pendingDrops;
+      if (drops == 0) {
+        return false;
+      }
+    } while (!PENDING_DROPS.compareAndSet(this, drops, drops - 1));
+    return true;
+  }
+
+  /** A message left the mailbox, so that one blocked sender can continue. */
+  @TruffleBoundary
+  private void unblockSender() {
+    Thread sender = blockedSenders.poll();
+    if (sender != null) {
+      LockSupport.unpark(sender);
+    }
+  }
+
+  private void doSendLockFree(final EventualMessage msg,
+      final ActorScheduler actorPool) {
+    assert msg.getTarget() == this;
+    assert msg.nextInMailbox == null : "Message was already enqueued";
+
+    EventualMessage head;
+    do {
+      head = mailboxHead;
+      msg.nextInMailbox = head;
+      msg.depthInMailbox = head == null ? 1 : head.depthInMailbox + 1;
+    } while (!MAILBOX_HEAD.compareAndSet(this, head, msg));
+
+    if (scheduled == 0 && SCHEDULED.compareAndSet(this, 0, 1)) {
+      execute(actorPool);
+    }
+  }
+
+  private void doSendAllLockFree(final EventualMessage[] msgs,
+      final ActorScheduler actorPool) {
+    // link the batch as a stack, with the last message as the newest one
+    EventualMessage oldest = msgs[0];
+    assert oldest.getTarget() == this;
+    assert oldest.nextInMailbox == null : "Message was already enqueued";
+
+    for (int i = 1; i < msgs.length; i++) {
+      assert msgs[i].getTarget() == this;
+      assert msgs[i].nextInMailbox == null : "Message was already enqueued";
+      msgs[i].nextInMailbox = msgs[i - 1];
+    }
+
+    EventualMessage newest = msgs[msgs.length - 1];
+    EventualMessage head;
+    do {
+      head = mailboxHead;
+      oldest.nextInMailbox = head;
+      newest.depthInMailbox = (head == null ? 0 : head.depthInMailbox) + msgs.length;
+    } while (!MAILBOX_HEAD.compareAndSet(this, head, newest));
+
+    if (scheduled == 0 && SCHEDULED.compareAndSet(this, 0, 1)) {
+      execute(actorPool);
+    }
+  }
+
+  /**
+   * Take all messages from the lock-free mailbox.
+   *
+   * @return the most recently sent message, which links to the older ones,
+   *         or null if the mailbox is empty
+   */
+  private EventualMessage takeAllMessages() {
+    if (mailboxHead == null) {
+      return null;
+    }
+    return MAILBOX_HEAD.getAndSet(this, null);
+  }
+
+  /**
+   * Called by the executor when it did not find any messages.
+   * The flag is reset first, and the mailbox is checked again afterwards,
+   * because a sender might have pushed a message after the last take,
+   * but seen the flag still being set.
+   *
+   * @return true, if execution was completed, false if there are new
+   *         messages and the executor remains responsible for them
+   */
+  private boolean tryCompleteExecution() {
+    scheduled = 0;
+    return mailboxHead == null || !SCHEDULED.compareAndSet(this, 0, 1);
   }
 
   private void doSend(final EventualMessage msg,
-      final ForkJoinPool actorPool) {
+      final ActorScheduler actorPool) {
     assert msg.getTarget() == this;
 
     if (firstMessage == null) {
@@ -185,11 +732,30 @@ public class Actor implements Activity {
     }
   }
 
+  private void doSendAll(final EventualMessage[] msgs,
+      final ActorScheduler actorPool) {
+    int i = 0;
+    if (firstMessage == null) {
+      assert msgs[0].getTarget() == this;
+      firstMessage = msgs[0];
+      i = 1;
+    }
+
+    for (; i < msgs.length; i++) {
+      assert msgs[i].getTarget() == this;
+      appendToMailbox(msgs[i]);
+    }
+
+    if (!isExecuting) {
+      isExecuting = true;
+      execute(actorPool);
+    }
+  }
+
   @TruffleBoundary
   protected void appendToMailbox(final EventualMessage msg) {
     if (mailboxExtension == null) {
       mailboxExtension = new ObjectBuffer<>(MAILBOX_EXTENSION_SIZE);
-      mailboxExtensionTimeStamps = new ObjectBuffer<>(MAILBOX_EXTENSION_SIZE);
     }
     mailboxExtension.append(msg);
   }
@@ -205,8 +771,18 @@ public class Actor implements Activity {
     protected EventualMessage               firstMessage;
     protected ObjectBuffer<EventualMessage> mailboxExtension;
 
+    /**
+     * Position in {@link #mailboxExtension}, when the quantum was exhausted
+     * before all messages of the current batch were executed.
+     */
+    private Iterator<EventualMessage> remainingExtension;
+
+    /** Number of messages in the current batch, 0 if there is none. */
     protected int size = 0;
 
+    private int  messagesInQuantum;
+    private long quantumStart;
+
     protected ExecAllMessages(final Actor actor, final VM vm) {
       this.actor = actor;
       this.vm = vm;
@@ -229,39 +805,135 @@ public class Actor implements Activity {
         ActorExecutionTrace.currentActivity(actor);
       }
 
+      messagesInQuantum = 0;
+      if (VmSettings.ACTOR_QUANTUM_NANOS > 0) {
+        quantumStart = System.nanoTime();
+      }
+
+      boolean batchCompleted;
       try {
-        while (getCurrentMessagesOrCompleteExecution()) {
-          processCurrentMessages(t, dbg);
+        // the previous quantum might have left messages of its batch
+        batchCompleted = size == 0 || processCurrentMessages(t, dbg);
+
+        while (batchCompleted && getCurrentMessagesOrCompleteExecution()) {
+          batchCompleted = processCurrentMessages(t, dbg);
         }
       } finally {
         ObjectTransitionSafepoint.INSTANCE.unregister();
       }
 
       t.currentlyExecutingActor = null;
+
+      if (VmSettings.ACTOR_QUANTUM_STATS) {
+        QuantumStatistics.quantumCompleted(messagesInQuantum);
+      }
+
+      if (!batchCompleted) {
+        if (VmSettings.ACTOR_QUANTUM_STATS) {
+          // the actor is still owned by this thread
+          QuantumStatistics.actorYielded(actor.numYields == 0);
+          actor.numYields += 1;
+        }
+        // the actor remains scheduled, but other actors get to execute first
+        actor.execute(vm.getActorPool());
+      }
     }
 
-    protected void processCurrentMessages(final ActorProcessingThread currentThread,
+    /**
+     * Execute the messages of the current batch.
+     *
+     * @return true, if all messages of the batch were executed,
+     *         false, if the quantum was exhausted before
+     */
+    protected boolean processCurrentMessages(final ActorProcessingThread currentThread,
         final WebDebugger dbg) {
       assert size > 0;
 
-      try {
-        execute(firstMessage, currentThread, dbg);
+      if (VmSettings.LOCK_FREE_MAILBOX) {
+        return processMessageChain(currentThread, dbg);
+      }
 
-        if (size > 1) {
-          for (EventualMessage msg : mailboxExtension) {
-            execute(msg, currentThread, dbg);
+      if (firstMessage != null) {
+        if (isQuantumExhausted()) {
+          return false;
+        }
+        EventualMessage msg = firstMessage;
+        firstMessage = null;
+        execute(msg, currentThread, dbg);
+      }
+
+      if (mailboxExtension != null) {
+        if (remainingExtension == null) {
+          remainingExtension = mailboxExtension.iterator();
+        }
+
+        while (remainingExtension.hasNext()) {
+          if (isQuantumExhausted()) {
+            return false;
           }
+          execute(remainingExtension.next(), currentThread, dbg);
         }
-      } finally {
-        if (VmSettings.ACTOR_TRACING) {
-          currentThread.createdMessages += size;
+
+        remainingExtension = null;
+        mailboxExtension = null;
+      }
+
+      size = 0;
+      return true;
+    }
+
+    /**
+     * Execute the messages taken from the lock-free mailbox, starting with
+     * the oldest one in {@link #firstMessage}.
+     */
+    private boolean processMessageChain(final ActorProcessingThread currentThread,
+        final WebDebugger dbg) {
+      while (firstMessage != null) {
+        if (isQuantumExhausted()) {
+          return false;
         }
+
+        EventualMessage msg = firstMessage;
+        firstMessage = msg.nextInMailbox;
+        msg.nextInMailbox = null;
+        execute(msg, currentThread, dbg);
+      }
+
+      size = 0;
+      return true;
+    }
+
+    /**
+     * A quantum always executes at least one message, to guarantee progress.
+     */
+    private boolean isQuantumExhausted() {
+      if (messagesInQuantum == 0) {
+        return false;
       }
+
+      if (VmSettings.ACTOR_QUANTUM_MESSAGES > 0
+          && messagesInQuantum >= VmSettings.ACTOR_QUANTUM_MESSAGES) {
+        return true;
+      }
+
+      return VmSettings.ACTOR_QUANTUM_NANOS > 0
+          && System.nanoTime() - quantumStart >= VmSettings.ACTOR_QUANTUM_NANOS;
     }
 
     private void execute(final EventualMessage msg,
         final ActorProcessingThread currentThread, final WebDebugger dbg) {
+      if (actor.takeMessage(msg)) {
+        return;
+      }
+
       currentThread.currentMessage = msg;
+      messagesInQuantum += 1;
+      if (VmSettings.ACTOR_QUANTUM_STATS) {
+        actor.numTurns += 1;
+      }
+      if (VmSettings.ACTOR_TRACING) {
+        currentThread.createdMessages += 1;
+      }
       if (VmSettings.TRUFFLE_DEBUGGER_ENABLED) {
         TracingActor.handleBreakpointsAndStepping(msg, dbg, actor);
       }
@@ -279,7 +951,21 @@ public class Actor implements Activity {
       }
     }
 
+    /**
+     * Folds the counters of an actor that ran out of messages into the
+     * summary, while the actor is still owned by this thread.
+     */
+    private void foldQuantumStats() {
+      if (VmSettings.ACTOR_QUANTUM_STATS) {
+        QuantumStatistics.actorIdle(actor, actor.numTurns, actor.numYields);
+      }
+    }
+
     private boolean getCurrentMessagesOrCompleteExecution() {
+      if (VmSettings.LOCK_FREE_MAILBOX) {
+        return getCurrentMessagesLockFree();
+      }
+
       synchronized (actor) {
         assert actor.isExecuting;
         firstMessage = actor.firstMessage;
@@ -287,6 +973,7 @@ public class Actor implements Activity {
 
         if (firstMessage == null) {
           assert mailboxExtension == null;
+          foldQuantumStats();
           // complete execution after all messages are processed
           actor.isExecuting = false;
           if (VmSettings.ACTOR_TRACING) {
@@ -300,21 +987,60 @@ public class Actor implements Activity {
 
         actor.firstMessage = null;
         actor.mailboxExtension = null;
+        TAKEN.lazySet(actor, actor.taken + size);
       }
 
       return true;
     }
-  }
 
-  @TruffleBoundary
-  protected void execute(final ForkJoinPool actorPool) {
-    try {
-      actorPool.execute(executor);
-    } catch (RejectedExecutionException e) {
-      throw new ThreadDeath();
+    private boolean getCurrentMessagesLockFree() {
+      assert actor.scheduled == 1;
+      EventualMessage newest = actor.takeAllMessages();
+
+      if (newest == null) {
+        foldQuantumStats();
+        if (actor.tryCompleteExecution()) {
+          if (VmSettings.ACTOR_TRACING) {
+            ActorExecutionTrace.clearCurrentActivity(actor);
+          }
+          size = 0;
+          return false;
+        }
+        newest = actor.takeAllMessages();
+        assert newest != null : "Only the executor takes messages";
+      }
+
+      // single message fast path, nothing to reverse
+      if (newest.nextInMailbox == null) {
+        firstMessage = newest;
+        size = 1;
+        TAKEN.lazySet(actor, actor.taken + 1);
+        return true;
+      }
+
+      // reverse the stack to restore the order in which messages were sent
+      EventualMessage reversed = null;
+      EventualMessage current = newest;
+      int n = 0;
+      while (current != null) {
+        EventualMessage next = current.nextInMailbox;
+        current.nextInMailbox = reversed;
+        reversed = current;
+        current = next;
+        n += 1;
+      }
+
+      firstMessage = reversed;
+      size = n;
+      TAKEN.lazySet(actor, actor.taken + n);
+      return true;
     }
   }
 
+  protected void execute(final ActorScheduler actorPool) {
+    actorPool.schedule(this, executor);
+  }
+
   @Override
   public void setStepToNextTurn(final boolean val) {}
 
@@ -331,6 +1057,9 @@ public class Actor implements Activity {
 
     protected Actor currentlyExecutingActor;
 
+    /** Set while the thread runs a worker of the affinity scheduler. */
+    ActorScheduler.AffinityScheduler.Worker schedulerWorker;
+
     protected ActorProcessingThread(final ForkJoinPool pool) {
       super(pool);
     }
@@ -365,6 +1094,10 @@ public class Actor implements Activity {
         Output.printConcurrencyEntitiesReport("[Total]\tE#" + numCreatedEntities);
       }
     }
+
+    if (VmSettings.ACTOR_QUANTUM_STATS) {
+      QuantumStatistics.report();
+    }
   }
 
   @Override
@@ -0,0 +1,347 @@
+package som.interpreter.actors;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import som.interpreter.actors.Actor.ActorProcessingThread;
+import som.interpreter.actors.Actor.ExecAllMessages;
+import som.vm.VmSettings;
+
+
+/**
+ * Schedules the {@link ExecAllMessages} tasks of actors on the threads of
+ * the actor pool.
+ *
+ * <p>
+ * The default scheduler submits the executor of an actor directly to the
+ * {@link ForkJoinPool}. With -Dsom.actorScheduler=affinity, the
+ * {@link AffinityScheduler} is used instead, which keeps its own run queues
+ * and tries to keep actors on the worker they executed on last.
+ */
+public abstract class ActorScheduler {
+
+  public static ActorScheduler create(final ForkJoinPool pool) {
+    if (VmSettings.ACTOR_AFFINITY_SCHEDULER) {
+      return new AffinityScheduler(pool);
+    } else {
+      return new ForkJoinScheduler(pool);
+    }
+  }
+
+  protected final ForkJoinPool pool;
+
+  protected ActorScheduler(final ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Schedule the executor of the given actor, which is expected to have
+   * messages in its mailbox and to not be scheduled already.
+   */
+  public abstract void schedule(Actor actor, ExecAllMessages executor);
+
+  /**
+   * @return true, if there are no scheduled actors and no active workers
+   */
+  public abstract boolean isQuiescent();
+
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  public boolean awaitTermination(final long timeout, final TimeUnit unit)
+      throws InterruptedException {
+    return pool.awaitTermination(timeout, unit);
+  }
+
+  /**
+   * Submits actors directly to the {@link ForkJoinPool}, which keeps them
+   * on the queue of the submitting worker, if the sender is an actor, too.
+   */
+  public static final class ForkJoinScheduler extends ActorScheduler {
+    public ForkJoinScheduler(final ForkJoinPool pool) {
+      super(pool);
+    }
+
+    @Override
+    @TruffleBoundary
+    public void schedule(final Actor actor, final ExecAllMessages executor) {
+      try {
+        pool.execute(executor);
+      } catch (RejectedExecutionException e) {
+        throw new ThreadDeath();
+      }
+    }
+
+    @Override
+    public boolean isQuiescent() {
+      return pool.isQuiescent();
+    }
+  }
+
+  /**
+   * Scheduler with a local run queue per worker, work stealing, and actor
+   * affinity.
+   *
+   * <p>
+   * A worker is submitted as a task to the {@link ForkJoinPool} when it gets
+   * work, and runs until its run queue is empty and there is nothing to
+   * steal. Thus, idle workers do not occupy a thread of the pool, and when a
+   * worker blocks, the thread the pool adds as compensation can run other
+   * workers.
+   *
+   * <p>
+   * An actor is scheduled on the worker it executed on last, as long as that
+   * worker is busy, to keep the actor's heap in the worker's caches. If the
+   * last worker is idle, and the actor is scheduled from another worker, for
+   * instance by a message send, it is handed off to the sending worker
+   * instead. Only when a busy worker has a backlog of more than one actor, an
+   * idle worker is started to steal from it. Otherwise, the actor waits for
+   * its last worker, for instance, when two actors exchange messages.
+   */
+  public static final class AffinityScheduler extends ActorScheduler {
+    private final Worker[]      workers;
+    private final AtomicInteger nextExternal;
+
+    private volatile boolean isShutdown;
+
+    public AffinityScheduler(final ForkJoinPool pool) {
+      super(pool);
+      this.nextExternal = new AtomicInteger(0);
+
+      workers = new Worker[pool.getParallelism()];
+      for (int i = 0; i < workers.length; i++) {
+        workers[i] = new Worker(this, i);
+      }
+    }
+
+    @Override
+    @TruffleBoundary
+    public void schedule(final Actor actor, final ExecAllMessages executor) {
+      if (isShutdown) {
+        throw new ThreadDeath();
+      }
+
+      Worker current = getCurrentWorker();
+      Worker target = selectWorker(actor.lastWorker, current);
+      target.enqueue(executor);
+      if (!activate(target) && needsIdleWorker(target)) {
+        activateIdleWorker();
+      }
+    }
+
+    /**
+     * An idle worker would steal the actor that was just queued, unless the
+     * busy target has a backlog, so that it steals from there instead.
+     */
+    static boolean needsIdleWorker(final Worker target) {
+      return target.queued.get() > 1;
+    }
+
+    Worker selectWorker(final Worker lastWorker, final Worker current) {
+      Worker last = lastWorker;
+      if (last != null && last.scheduler != this) {
+        last = null;
+      }
+
+      if (last != null && (last.isActive() || current == null)) {
+        return last;
+      }
+
+      if (current != null) {
+        return current;
+      }
+
+      return workers[Math.floorMod(nextExternal.getAndIncrement(), workers.length)];
+    }
+
+    private Worker getCurrentWorker() {
+      Thread t = Thread.currentThread();
+      if (t instanceof ActorProcessingThread) {
+        Worker w = ((ActorProcessingThread) t).schedulerWorker;
+        if (w != null && w.scheduler == this) {
+          return w;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Submit the worker to the pool, unless it is active already.
+     *
+     * @return true, if the worker was activated
+     */
+    private boolean activate(final Worker worker) {
+      if (worker.tryActivate()) {
+        try {
+          pool.execute(worker);
+        } catch (RejectedExecutionException e) {
+          throw new ThreadDeath();
+        }
+        return true;
+      }
+      return false;
+    }
+
+    private void activateIdleWorker() {
+      for (Worker w : workers) {
+        if (activate(w)) {
+          return;
+        }
+      }
+    }
+
+    Worker getWorker(final int id) {
+      return workers[id];
+    }
+
+    private ExecAllMessages steal(final Worker thief) {
+      for (int i = 1; i < workers.length; i++) {
+        Worker victim = workers[(thief.id + i) % workers.length];
+        ExecAllMessages task = victim.pollLast();
+        if (task != null) {
+          return task;
+        }
+      }
+      return null;
+    }
+
+    private boolean hasQueuedWork() {
+      for (Worker w : workers) {
+        if (w.queued.get() > 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean isQuiescent() {
+      for (Worker w : workers) {
+        if (w.isActive()) {
+          return false;
+        }
+      }
+      return !hasQueuedWork();
+    }
+
+    @Override
+    public void shutdown() {
+      isShutdown = true;
+      super.shutdown();
+    }
+
+    private static final AtomicIntegerFieldUpdater<Worker> ACTIVE =
+        AtomicIntegerFieldUpdater.newUpdater(Worker.class, "active");
+
+    /**
+     * Executes actors from its own run queue, or steals them from other
+     * workers. It is submitted to the pool as a task, when it gets work.
+     */
+    static final class Worker implements Runnable {
+      private final AffinityScheduler scheduler;
+      private final int               id;
+
+      private final ConcurrentLinkedDeque<ExecAllMessages> runQueue;
+
+      /** Number of actors in the run queue, maintained to avoid O(n) size(). */
+      private final AtomicInteger queued;
+
+      /** 1 if the worker is submitted to the pool or running, 0 otherwise. */
+      private volatile int active;
+
+      Worker(final AffinityScheduler scheduler, final int id) {
+        this.scheduler = scheduler;
+        this.id = id;
+        this.runQueue = new ConcurrentLinkedDeque<>();
+        this.queued = new AtomicInteger(0);
+      }
+
+      boolean isActive() {
+        return active == 1;
+      }
+
+      /** @return true, if the worker was idle, and is to be submitted now */
+      boolean tryActivate() {
+        return active == 0 && ACTIVE.compareAndSet(this, 0, 1);
+      }
+
+      void enqueue(final ExecAllMessages executor) {
+        queued.incrementAndGet();
+        runQueue.offerLast(executor);
+      }
+
+      private ExecAllMessages pollFirst() {
+        ExecAllMessages task = runQueue.pollFirst();
+        if (task != null) {
+          queued.decrementAndGet();
+        }
+        return task;
+      }
+
+      private ExecAllMessages pollLast() {
+        ExecAllMessages task = runQueue.pollLast();
+        if (task != null) {
+          queued.decrementAndGet();
+        }
+        return task;
+      }
+
+      @Override
+      public void run() {
+        ActorProcessingThread t = (ActorProcessingThread) Thread.currentThread();
+        t.schedulerWorker = this;
+
+        try {
+          while (!scheduler.isShutdown) {
+            ExecAllMessages task = pollFirst();
+            if (task == null) {
+              task = scheduler.steal(this);
+            }
+
+            if (task != null) {
+              task.actor.lastWorker = this;
+              execute(t, task);
+            } else if (!deactivate()) {
+              break;
+            }
+          }
+        } finally {
+          t.schedulerWorker = null;
+        }
+      }
+
+      /**
+       * The flag is reset first, and the run queue is checked again
+       * afterwards, because a concurrent schedule might have seen the worker
+       * still being active.
+       *
+       * @return true, if the worker has new work, and remains active
+       */
+      private boolean deactivate() {
+        active = 0;
+        return queued.get() > 0 && ACTIVE.compareAndSet(this, 0, 1);
+      }
+
+      private void execute(final ActorProcessingThread t, final ExecAllMessages task) {
+        try {
+          task.run();
+        } catch (ThreadDeath e) {
+          // Ignore those, we already signaled an error
+        } catch (Throwable e) {
+          try {
+            scheduler.pool.getUncaughtExceptionHandler().uncaughtException(t, e);
+          } catch (ThreadDeath td) {
+            // exit was requested, the main thread takes care of the shutdown
+          }
+        }
+      }
+    }
+  }
+}
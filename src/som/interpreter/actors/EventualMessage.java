@@ -33,6 +33,25 @@ public abstract class EventualMessage {
    */
   private final boolean haltOnResolver;
 
+  /**
+   * Link to the next message in the lock-free mailbox of the target actor.
+   * Only written by the sender before the message is published, and by the
+   * executor of the target actor after taking the message out of the mailbox.
+   */
+  EventualMessage nextInMailbox;
+
+  /**
+   * Number of messages in the lock-free mailbox, up to and including this
+   * one, when it was pushed. Gives the depth of unbounded mailboxes.
+   */
+  int depthInMailbox;
+
+  /**
+   * Set for messages that took a place in a bounded mailbox, so that the
+   * executor frees only places that were taken.
+   */
+  boolean inBoundedMailbox;
+
   protected EventualMessage(final Object[] args,
       final SResolver resolver, final RootCallTarget onReceive,
       final boolean haltOnReceive, final boolean haltOnResolver) {
@@ -332,6 +351,15 @@ public abstract class EventualMessage {
     return ((ActorProcessingThread) t).currentlyExecutingActor;
   }
 
+  /** @return the actor executing on the current thread, or null on other threads */
+  public static Actor getActorExecutingOnCurrentThread() {
+    Thread t = Thread.currentThread();
+    if (t instanceof ActorProcessingThread) {
+      return ((ActorProcessingThread) t).currentlyExecutingActor;
+    }
+    return null;
+  }
+
   public static EventualMessage getCurrentExecutingMessage() {
     Thread t = Thread.currentThread();
     return ((ActorProcessingThread) t).currentMessage;
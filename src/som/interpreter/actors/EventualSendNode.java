@@ -1,7 +1,6 @@
 package som.interpreter.actors;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ForkJoinPool;
 
 import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.RootCallTarget;
@@ -64,7 +63,7 @@ public class EventualSendNode extends ExprWithTagsNode {
     return send.execute(frame, args);
   }
 
-  private static RootCallTarget createOnReceiveCallTarget(final SSymbol selector,
+  public static RootCallTarget createOnReceiveCallTarget(final SSymbol selector,
       final SourceSection source, final SomLanguage lang) {
 
     AbstractMessageSendNode invoke = MessageSendNode.createGeneric(selector, null, source);
@@ -112,8 +111,8 @@ public class EventualSendNode extends ExprWithTagsNode {
     @Children protected final WrapReferenceNode[] wrapArgs;
     protected final RootCallTarget                onReceive;
 
-    protected final SourceSection source;
-    protected final ForkJoinPool  actorPool;
+    protected final SourceSection  source;
+    protected final ActorScheduler actorPool;
 
     @Child protected AbstractBreakpointNode messageReceiverBreakpoint;
     @Child protected AbstractBreakpointNode promiseResolverBreakpoint;
@@ -171,6 +170,15 @@ public class EventualSendNode extends ExprWithTagsNode {
       return args[0] instanceof SPromise;
     }
 
+    /**
+     * Sends to resolved promises are delivered directly to the resolution's
+     * actor. With tracing, they remain promise messages, as recorded.
+     */
+    protected static final boolean isResolvedPromiseRcvr(final Object[] args) {
+      return !VmSettings.ACTOR_TRACING && args[0] instanceof SPromise
+          && ((SPromise) args[0]).isResolvedAndSettled();
+    }
+
     @ExplodeLoop
     protected void sendDirectMessage(final Object[] args, final Actor owner,
         final SResolver resolver) {
@@ -214,6 +222,40 @@ public class EventualSendNode extends ExprWithTagsNode {
       registerNode.register(rcvr, msg, rcvr.getOwner());
     }
 
+    /**
+     * Send the message directly to the value of a resolved promise, either
+     * to the actor of a far reference, or to the current actor.
+     */
+    protected void sendToResolvedPromise(final Object[] args, final Actor current,
+        final SResolver resolver) {
+      SPromise rcvr = (SPromise) args[0];
+      assert rcvr.getOwner() == current : "the promise is an Object and owned by this specific actor";
+
+      Object value = rcvr.getValueUnsync();
+      assert !(value instanceof SPromise);
+      args[0] = value;
+
+      if (value instanceof SFarReference) {
+        sendDirectMessage(args, current, resolver);
+      } else {
+        sendNearMessage(args, current, resolver);
+      }
+    }
+
+    protected void sendNearMessage(final Object[] args, final Actor current,
+        final SResolver resolver) {
+      DirectMessage msg = new DirectMessage(current, selector, args, current,
+          resolver, onReceive,
+          messageReceiverBreakpoint.executeShouldHalt(),
+          promiseResolverBreakpoint.executeShouldHalt());
+
+      if (VmSettings.ACTOR_TRACING) {
+        ActorExecutionTrace.sendOperation(SendOp.ACTOR_MSG, msg.getMessageId(),
+            current.getId());
+      }
+      current.send(msg, actorPool);
+    }
+
     protected RegisterWhenResolved createRegisterNode() {
       return new RegisterWhenResolved(actorPool);
     }
@@ -236,6 +278,18 @@ public class EventualSendNode extends ExprWithTagsNode {
       return result;
     }
 
+    @Specialization(guards = {"isResultUsed()", "isResolvedPromiseRcvr(args)"})
+    public final SPromise toResolvedPromiseWithResultPromise(final Object[] args) {
+      Actor current = EventualMessage.getActorCurrentMessageIsExecutionOn();
+
+      SPromise result = SPromise.createPromise(current,
+          false, promiseResolutionBreakpoint.executeShouldHalt(), source);
+      SResolver resolver = SPromise.createResolver(result);
+
+      sendToResolvedPromise(args, current, resolver);
+      return result;
+    }
+
     @Specialization(guards = {"isResultUsed()", "isPromiseRcvr(args)"})
     public final SPromise toPromiseWithResultPromise(final Object[] args,
         @Cached("createRegisterNode()") final RegisterWhenResolved registerNode) {
@@ -258,17 +312,7 @@ public class EventualSendNode extends ExprWithTagsNode {
           false, promiseResolutionBreakpoint.executeShouldHalt(), source);
       SResolver resolver = SPromise.createResolver(result);
 
-      DirectMessage msg = new DirectMessage(current, selector, args, current,
-          resolver, onReceive,
-          messageReceiverBreakpoint.executeShouldHalt(),
-          promiseResolverBreakpoint.executeShouldHalt());
-
-      if (VmSettings.ACTOR_TRACING) {
-        ActorExecutionTrace.sendOperation(SendOp.ACTOR_MSG, msg.getMessageId(),
-            current.getId());
-      }
-      current.send(msg, actorPool);
-
+      sendNearMessage(args, current, resolver);
       return result;
     }
 
@@ -281,6 +325,14 @@ public class EventualSendNode extends ExprWithTagsNode {
       return Nil.nilObject;
     }
 
+    @Specialization(guards = {"!isResultUsed()", "isResolvedPromiseRcvr(args)"})
+    public final Object toResolvedPromiseWithoutResultPromise(final Object[] args) {
+      Actor current = EventualMessage.getActorCurrentMessageIsExecutionOn();
+
+      sendToResolvedPromise(args, current, null);
+      return Nil.nilObject;
+    }
+
     @Specialization(guards = {"!isResultUsed()", "isPromiseRcvr(args)"})
     public final Object toPromiseWithoutResultPromise(final Object[] args,
         @Cached("createRegisterNode()") final RegisterWhenResolved registerNode) {
@@ -293,16 +345,7 @@ public class EventualSendNode extends ExprWithTagsNode {
     public final Object toNearRefWithoutResultPromise(final Object[] args) {
       Actor current = EventualMessage.getActorCurrentMessageIsExecutionOn();
 
-      DirectMessage msg = new DirectMessage(current, selector, args, current,
-          null, onReceive,
-          messageReceiverBreakpoint.executeShouldHalt(),
-          promiseResolverBreakpoint.executeShouldHalt());
-
-      if (VmSettings.ACTOR_TRACING) {
-        ActorExecutionTrace.sendOperation(SendOp.ACTOR_MSG, msg.getMessageId(),
-            current.getId());
-      }
-      current.send(msg, actorPool);
+      sendNearMessage(args, current, null);
       return Nil.nilObject;
     }
 
@@ -0,0 +1,67 @@
+package som.interpreter.actors;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import som.Output;
+import som.vm.VmSettings;
+
+
+/**
+ * Canonicalizes the far references to the objects of one actor, so that
+ * sending the same object repeatedly reuses one far reference.
+ *
+ * <p>
+ * Keys and values are weak, so that the cache does not keep objects or far
+ * references alive. The far reference keeps its object alive, and thereby
+ * its entry. SOM objects do not override {@code equals()} and
+ * {@code hashCode()}, so the {@link WeakHashMap} compares them by identity.
+ *
+ * <p>
+ * With -Dsom.farRefStats=true, the numbers of allocated and reused far
+ * references are reported at VM exit.
+ */
+public final class FarReferenceCache {
+  private static final LongAdder allocated = new LongAdder();
+  private static final LongAdder reused    = new LongAdder();
+
+  private final Actor                                           actor;
+  private final WeakHashMap<Object, WeakReference<SFarReference>> references;
+
+  FarReferenceCache(final Actor actor) {
+    this.actor = actor;
+    this.references = new WeakHashMap<>();
+  }
+
+  @TruffleBoundary
+  synchronized SFarReference get(final Object o) {
+    WeakReference<SFarReference> cached = references.get(o);
+    if (cached != null) {
+      SFarReference ref = cached.get();
+      if (ref != null) {
+        if (VmSettings.FAR_REF_STATS) {
+          reused.increment();
+        }
+        return ref;
+      }
+    }
+
+    SFarReference ref = new SFarReference(actor, o);
+    references.put(o, new WeakReference<>(ref));
+    if (VmSettings.FAR_REF_STATS) {
+      allocated.increment();
+    }
+    return ref;
+  }
+
+  public static void reportStats() {
+    if (!VmSettings.FAR_REF_STATS) {
+      return;
+    }
+    Output.println("[Far References] allocated: " + allocated.sum()
+        + "\treused: " + reused.sum());
+  }
+}
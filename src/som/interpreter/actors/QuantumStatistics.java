@@ -0,0 +1,130 @@
+package som.interpreter.actors;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import som.Output;
+import som.vm.VmSettings;
+
+
+/**
+ * Quantum statistics of actors, only collected when
+ * {@link VmSettings#ACTOR_QUANTUM_STATS} is enabled.
+ *
+ * <p>
+ * Besides the totals over all actors, it keeps the actors with the most turns.
+ * Each actor counts its own turns and yields, and is folded into this summary
+ * whenever it runs out of messages. The summary only refers weakly to the
+ * actors, so that they can be collected.
+ */
+final class QuantumStatistics {
+  private QuantumStatistics() {}
+
+  /** Number of actors reported individually. */
+  private static final int NUM_TOP_ACTORS = 20;
+
+  private static final LongAdder numActors         = new LongAdder();
+  private static final LongAdder numTurns          = new LongAdder();
+  private static final LongAdder numQuanta         = new LongAdder();
+  private static final LongAdder numYields         = new LongAdder();
+  private static final LongAdder numYieldingActors = new LongAdder();
+
+  private static final class Entry {
+    private final WeakReference<Actor> actor;
+    private final String               name;
+    private final long                 turns;
+    private final long                 yields;
+
+    Entry(final Actor actor, final long turns, final long yields) {
+      this.actor = new WeakReference<>(actor);
+      this.name = actor.getName();
+      this.turns = turns;
+      this.yields = yields;
+    }
+  }
+
+  /** The actors with the most turns, the one with the fewest turns first. */
+  private static final PriorityQueue<Entry> topActors =
+      new PriorityQueue<>(NUM_TOP_ACTORS, Comparator.comparingLong(e -> e.turns));
+
+  /**
+   * Fewest turns of the reported actors once there are enough of them, used
+   * to skip actors that would not make it into the summary without locking.
+   */
+  private static volatile long minTopTurns = 0;
+
+  static void actorCreated() {
+    numActors.increment();
+  }
+
+  static void quantumCompleted(final int messagesInQuantum) {
+    numTurns.add(messagesInQuantum);
+    numQuanta.increment();
+  }
+
+  static void actorYielded(final boolean firstYield) {
+    numYields.increment();
+    if (firstYield) {
+      numYieldingActors.increment();
+    }
+  }
+
+  /**
+   * Folds the counters of an actor that ran out of messages into the summary.
+   * Turns only grow, so an actor that has no more turns than the least
+   * reported actor neither enters the summary, nor changes its rank in it.
+   */
+  static void actorIdle(final Actor actor, final long turns, final long yields) {
+    if (turns <= minTopTurns) {
+      return;
+    }
+    fold(actor, turns, yields);
+  }
+
+  @TruffleBoundary
+  private static synchronized void fold(final Actor actor, final long turns,
+      final long yields) {
+    for (Entry e : topActors) {
+      if (e.actor.get() == actor) {
+        topActors.remove(e);
+        break;
+      }
+    }
+
+    if (topActors.size() == NUM_TOP_ACTORS) {
+      if (turns <= topActors.peek().turns) {
+        return;
+      }
+      topActors.poll();
+    }
+    topActors.add(new Entry(actor, turns, yields));
+
+    if (topActors.size() == NUM_TOP_ACTORS) {
+      minTopTurns = topActors.peek().turns;
+    }
+  }
+
+  /**
+   * Reports the number of turns, i.e., messages, executed by all actors,
+   * the number of quanta they needed, and how often they yielded because
+   * the quantum was exhausted, followed by the actors with the most turns.
+   */
+  static synchronized void report() {
+    Output.println("[Actor Quanta] actors: " + numActors.sum()
+        + "\tturns: " + numTurns.sum() + "\tquanta: " + numQuanta.sum()
+        + "\tyields: " + numYields.sum()
+        + "\tactors that yielded: " + numYieldingActors.sum());
+
+    ArrayList<Entry> top = new ArrayList<>(topActors);
+    top.sort(Comparator.comparingLong((final Entry e) -> e.turns).reversed());
+    for (Entry e : top) {
+      Output.println("[Actor Quanta]\t" + e.name + "\tturns: " + e.turns
+          + "\tyields: " + e.yields);
+    }
+  }
+}
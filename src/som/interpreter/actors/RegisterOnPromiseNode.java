@@ -1,7 +1,5 @@
 package som.interpreter.actors;
 
-import java.util.concurrent.ForkJoinPool;
-
 import com.oracle.truffle.api.nodes.Node;
 
 import som.interpreter.actors.EventualMessage.PromiseMessage;
@@ -12,97 +10,52 @@ public abstract class RegisterOnPromiseNode {
   public static final class RegisterWhenResolved extends Node {
     @Child protected SchedulePromiseHandlerNode schedule;
 
-    public RegisterWhenResolved(final ForkJoinPool actorPool) {
+    public RegisterWhenResolved(final ActorScheduler actorPool) {
       schedule = SchedulePromiseHandlerNodeGen.create(actorPool);
     }
 
     public void register(final SPromise promise, final PromiseMessage msg,
         final Actor current) {
+      // LOCKING NOTE: registering fails only when the promise is completed.
+      // At that point, the resolver has scheduled all earlier registrations,
+      // so that we can schedule the callback/msg directly, without racing
+      // with the resolver.
+      if (promise.registerWhenResolved(msg)) {
+        return;
+      }
 
-      Object promiseValue;
-      // LOCKING NOTE: this handling of the check for resolution and the
-      // registering of the callback/msg needs to be done in the same step
-      // otherwise, we are opening a race between completion and processing
-      // of handlers. We can split the case for a resolved promise out, because
-      // we need to schedule the callback/msg directly anyway
-      synchronized (promise) {
-        if (!promise.isResolvedUnsync()) {
-          if (promise.isErroredUnsync()) {
-            // short cut on error, this promise will never resolve successfully, so,
-            // just return promise, don't use isSomehowResolved(), because the other
-            // case are not correct
-            return;
-          }
-          promise.registerWhenResolvedUnsynced(msg);
-          return;
-        } else {
-          promiseValue = promise.value;
-          assert promiseValue != null;
-        }
+      if (!promise.isResolvedUnsync()) {
+        // short cut on error, this promise will never resolve successfully
+        return;
       }
 
-      // LOCKING NOTE:
-      // The schedule.execute() is moved out of the synchronized(promise) block,
-      // because it leads to wrapping of arguments, which needs to look promises
-      // and thus, could lead to a deadlock.
-      //
-      // However, we still need to wait until any other thread is done with
-      // resolving the promise, thus we lock on the promise's value, which is
-      // used to group setting the promise resolution state and processing the
-      // message.
-      synchronized (promiseValue) {
-        if (promise.getHaltOnResolution()) {
-          msg.enableHaltOnReceive();
-        }
-        schedule.execute(promise, msg, current);
+      if (promise.getHaltOnResolution()) {
+        msg.enableHaltOnReceive();
       }
+      schedule.execute(promise, msg, current);
     }
   }
 
   public static final class RegisterOnError extends Node {
     @Child protected SchedulePromiseHandlerNode schedule;
 
-    public RegisterOnError(final ForkJoinPool actorPool) {
+    public RegisterOnError(final ActorScheduler actorPool) {
       this.schedule = SchedulePromiseHandlerNodeGen.create(actorPool);
     }
 
     public void register(final SPromise promise, final PromiseMessage msg,
         final Actor current) {
-
-      Object promiseValue;
-      // LOCKING NOTE: this handling of the check for resolution and the
-      // registering of the callback/msg needs to be done in the same step
-      // otherwise, we are opening a race between completion and processing
-      // of handlers. We can split the case for a resolved promise out, because
-      // we need to schedule the callback/msg directly anyway
-      synchronized (promise) {
-        if (!promise.isErroredUnsync()) {
-          if (promise.isResolvedUnsync()) {
-            // short cut on resolved, this promise will never error, so,
-            // just return promise, don't use isSomehowResolved(), because the other
-            // case are not correct
-            return;
-          }
-          promise.registerOnErrorUnsynced(msg);
-          return;
-        } else {
-          promiseValue = promise.value;
-          assert promiseValue != null;
-        }
+      // LOCKING NOTE: see RegisterWhenResolved
+      if (promise.registerOnError(msg)) {
+        return;
       }
 
-      // LOCKING NOTE:
-      // The schedule.execute() is moved out of the synchronized(promise) block,
-      // because it leads to wrapping of arguments, which needs to look promises
-      // and thus, could lead to a deadlock.
-      //
-      // However, we still need to wait until any other thread is done with
-      // resolving the promise, thus we lock on the promise's value, which is
-      // used to group setting the promise resolution state and processing the
-      // message.
-      synchronized (promiseValue) {
-        schedule.execute(promise, msg, current);
+      if (!promise.isErroredUnsync()) {
+        // short cut on resolved, this promise will never error
+        return;
       }
+
+      schedule.execute(promise, msg, current);
     }
   }
 }
@@ -1,7 +1,9 @@
 package som.interpreter.actors;
 
-import java.util.ArrayList;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -36,25 +38,30 @@ public class SPromise extends SObjectWithClass {
     }
   }
 
-  // THREAD-SAFETY: these fields are subject to race conditions and should only
-  // be accessed when under the SPromise(this) lock
-  // currently, we minimize locking by first setting the result
-  // value and resolved flag, and then release the lock again
-  // this makes sure that the promise owner directly schedules
-  // call backs, and does not block the resolver to schedule
-  // call backs here either. After resolving the future,
-  // whenResolved and whenBroken should only be accessed by the
-  // resolver actor
-  protected PromiseMessage            whenResolved;
-  protected ArrayList<PromiseMessage> whenResolvedExt;
-  protected PromiseMessage            onError;
-  protected ArrayList<PromiseMessage> onErrorExt;
-
-  protected SPromise            chainedPromise;
-  protected ArrayList<SPromise> chainedPromiseExt;
-
-  protected Object     value;
-  protected Resolution resolutionState;
+  // THREAD-SAFETY: the state of a promise is managed without locks.
+  // Callbacks, messages, and chained promises are pushed with a CAS onto the
+  // list of registrations. The resolver sets the value and resolution state,
+  // and then takes the registrations in batches, until it finds the list empty
+  // and replaces it with the COMPLETED marker. Once the marker is set, all
+  // earlier registrations have been scheduled, and new registrations fail,
+  // so that the registering actor schedules the callback itself. Thus, each
+  // callback is scheduled exactly once, and in the order of registration.
+  // Callbacks registered after the value is set, but before the marker,
+  // wait for the marker, to not be overtaken by later direct sends. They park
+  // after pushing a waiter onto the list, which the resolver unparks once the
+  // marker is set.
+  private volatile Registration registrations;
+
+  private static final AtomicReferenceFieldUpdater<SPromise, Registration> REGISTRATIONS =
+      AtomicReferenceFieldUpdater.newUpdater(SPromise.class, Registration.class,
+          "registrations");
+
+  /** Marks the registration list of a promise, of which all callbacks were scheduled. */
+  private static final Registration COMPLETED = new Registration(Registration.CHAINED, null);
+
+  // value is published by the volatile write to resolutionState
+  protected Object              value;
+  protected volatile Resolution resolutionState;
 
   /** The owner of this promise, on which all call backs are scheduled. */
   protected final Actor owner;
@@ -106,59 +113,200 @@ public class SPromise extends SObjectWithClass {
     promiseClass = cls;
   }
 
-  public final synchronized SPromise getChainedPromiseFor(final Actor target) {
+  public final SPromise getChainedPromiseFor(final Actor target) {
     SPromise remote = SPromise.createPromise(target, haltOnResolver,
         haltOnResolution, null);
     if (VmSettings.PROMISE_RESOLUTION) {
       ActorExecutionTrace.promiseChained(getPromiseId(), remote.getPromiseId());
     }
-    if (isCompleted()) {
-      remote.value = value;
+    if (!addChainedPromise(remote)) {
+      // the value was wrapped for the owner of this promise
+      remote.value = target.wrapForUse(value, owner, null);
       remote.resolutionState = resolutionState;
+      // no resolver runs for the copy, so it is complete right away
+      REGISTRATIONS.set(remote, COMPLETED);
       if (VmSettings.REPLAY) {
         ((SReplayPromise) remote).resolvingActor = ((SReplayPromise) this).resolvingActor;
       }
-    } else {
-      addChainedPromise(remote);
     }
     return remote;
   }
 
-  final void registerWhenResolvedUnsynced(final PromiseMessage msg) {
-    if (whenResolved == null) {
-      whenResolved = msg;
-    } else {
-      registerMoreWhenResolved(msg);
-    }
+  /**
+   * Register a callback or message that is to be scheduled when the promise
+   * is resolved successfully.
+   *
+   * @return true, if it was registered, false, if the promise is completed
+   *         already, and the caller needs to schedule it directly
+   */
+  final boolean registerWhenResolved(final PromiseMessage msg) {
+    return register(new Registration(Registration.WHEN_RESOLVED, msg), true);
+  }
+
+  /**
+   * Register a callback that is to be scheduled when the promise is broken.
+   *
+   * @return true, if it was registered, false, if the promise is completed
+   *         already, and the caller needs to schedule it directly
+   */
+  final boolean registerOnError(final PromiseMessage msg) {
+    return register(new Registration(Registration.ON_ERROR, msg), true);
+  }
+
+  /**
+   * @param waitForResolver for callbacks, which are scheduled directly, if
+   *          registering fails. When the promise is being resolved, they wait
+   *          for the resolver, to not overtake the callbacks it still schedules.
+   *          Chained promises do not wait, because they only copy the value,
+   *          and are registered during resolution, when arguments are wrapped.
+   */
+  private boolean register(final Registration registration,
+      final boolean waitForResolver) {
+    Registration head;
+    do {
+      head = registrations;
+      if (head == COMPLETED) {
+        return false;
+      }
+      if (waitForResolver && isCompleted(resolutionState)) {
+        awaitSettled();
+        return false;
+      }
+      registration.next = head;
+    } while (!REGISTRATIONS.compareAndSet(this, head, registration));
+    return true;
   }
 
   @TruffleBoundary
-  private void registerMoreWhenResolved(final PromiseMessage msg) {
-    if (whenResolvedExt == null) {
-      whenResolvedExt = new ArrayList<>(2);
+  private void awaitSettled() {
+    Registration waiter = new Registration(Registration.WAITER, Thread.currentThread());
+    Registration head;
+    do {
+      head = registrations;
+      if (head == COMPLETED) {
+        return;
+      }
+      waiter.next = head;
+    } while (!REGISTRATIONS.compareAndSet(this, head, waiter));
+
+    // the wait is managed, so that the pool can compensate for the blocked
+    // worker, which may be needed to complete the resolution
+    boolean interrupted = false;
+    while (registrations != COMPLETED) {
+      try {
+        ForkJoinPool.managedBlock(new SettledBlocker(this));
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
     }
-    whenResolvedExt.add(msg);
   }
 
-  final void registerOnErrorUnsynced(final PromiseMessage msg) {
-    if (onError == null) {
-      onError = msg;
-    } else {
-      registerMoreOnError(msg);
+  private static final class SettledBlocker implements ManagedBlocker {
+    private final SPromise promise;
+
+    SettledBlocker(final SPromise promise) {
+      this.promise = promise;
+    }
+
+    @Override
+    public boolean block() {
+      if (!isReleasable()) {
+        LockSupport.park(promise);
+      }
+      return isReleasable();
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return promise.registrations == COMPLETED;
     }
   }
 
-  @TruffleBoundary
-  private void registerMoreOnError(final PromiseMessage msg) {
-    if (onErrorExt == null) {
-      onErrorExt = new ArrayList<>(2);
+  /**
+   * Take the registrations that were added since the last call, or mark
+   * the promise as completed, if there are none.
+   *
+   * @return the registrations in the order they were registered,
+   *         or null, if the promise is completed now
+   */
+  private Registration takeRegistrationsOrComplete() {
+    while (true) {
+      Registration head = registrations;
+      assert head != COMPLETED : "Promise was completed twice";
+      if (head == null) {
+        if (REGISTRATIONS.compareAndSet(this, null, COMPLETED)) {
+          return null;
+        }
+      } else if (REGISTRATIONS.compareAndSet(this, head, null)) {
+        return Registration.reverse(head);
+      }
+    }
+  }
+
+  /**
+   * Element of the lock-free list of registrations of a promise.
+   * The list is a stack, the most recent registration is the head.
+   */
+  private static final class Registration {
+    static final byte WHEN_RESOLVED = 0;
+    static final byte ON_ERROR      = 1;
+    static final byte CHAINED       = 2;
+    static final byte WAITER        = 3;
+
+    final byte   kind;
+    final Object callbackOrPromise;
+
+    Registration next;
+
+    Registration(final byte kind, final Object callbackOrPromise) {
+      this.kind = kind;
+      this.callbackOrPromise = callbackOrPromise;
+    }
+
+    static Registration reverse(final Registration head) {
+      Registration reversed = null;
+      Registration current = head;
+      while (current != null) {
+        Registration next = current.next;
+        current.next = reversed;
+        reversed = current;
+        current = next;
+      }
+      return reversed;
+    }
+
+    /**
+     * Move the waiters of the batch onto the given list of waiters.
+     * The batch cannot be used afterwards.
+     */
+    static Registration takeWaiters(final Registration batch, final Registration waiters) {
+      Registration result = waiters;
+      Registration current = batch;
+      while (current != null) {
+        Registration next = current.next;
+        if (current.kind == WAITER) {
+          current.next = result;
+          result = current;
+        }
+        current = next;
+      }
+      return result;
+    }
+
+    @TruffleBoundary
+    static void unparkWaiters(final Registration waiters) {
+      for (Registration r = waiters; r != null; r = r.next) {
+        LockSupport.unpark((Thread) r.callbackOrPromise);
+      }
     }
-    onErrorExt.add(msg);
   }
 
   protected final void scheduleCallbacksOnResolution(final Object result,
       final PromiseMessage msg, final Actor current,
-      final ForkJoinPool actorPool, final boolean haltOnResolution) {
+      final ActorScheduler actorPool, final boolean haltOnResolution) {
     // when a promise is resolved, we need to schedule all the
     // #whenResolved:/#onError:/... callbacks msgs as well as all eventual send
     // msgs to the promise
@@ -174,36 +322,46 @@ public class SPromise extends SObjectWithClass {
     msg.getTarget().send(msg, actorPool);
   }
 
-  public final synchronized void addChainedPromise(final SPromise remote) {
+  /**
+   * Chain the remote promise to this one, so that it is resolved when this
+   * promise is resolved.
+   *
+   * @return true, if it was chained, false, if this promise is completed
+   *         already, and the remote promise needs to be resolved directly
+   */
+  public final boolean addChainedPromise(final SPromise remote) {
     assert remote != null;
+    Resolution previous = remote.resolutionState;
+    // needs to be set before the remote promise can be resolved by the resolver
     remote.resolutionState = Resolution.CHAINED;
-    if (chainedPromise == null) {
-      chainedPromise = remote;
-    } else {
-      addMoreChainedPromises(remote);
+    if (register(new Registration(Registration.CHAINED, remote), false)) {
+      return true;
     }
+    remote.resolutionState = previous;
+    return false;
   }
 
-  @TruffleBoundary
-  private void addMoreChainedPromises(final SPromise promise) {
-    if (chainedPromiseExt == null) {
-      chainedPromiseExt = new ArrayList<>(2);
-    }
-    chainedPromiseExt.add(promise);
+  /**
+   * @return true, if it has a valid value, either successful or erroneous
+   */
+  public final boolean isCompleted() {
+    return isCompleted(resolutionState);
   }
 
   /**
-   * @return true, if it has a valid value, either successful or erroneous
+   * @return true, if the promise was resolved successfully, and all callbacks
+   *         and messages registered before were scheduled already, so that new
+   *         messages can be sent directly without overtaking them
    */
-  public final synchronized boolean isCompleted() {
-    return resolutionState == Resolution.SUCCESSFUL || resolutionState == Resolution.ERRONEOUS;
+  public final boolean isResolvedAndSettled() {
+    return registrations == COMPLETED && resolutionState == Resolution.SUCCESSFUL;
   }
 
   public static final boolean isCompleted(final Resolution result) {
     return result == Resolution.SUCCESSFUL || result == Resolution.ERRONEOUS;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
+  /** Internal Helper, the state might change concurrently, unless it is completed. */
   public final Resolution getResolutionStateUnsync() {
     return resolutionState;
   }
@@ -214,18 +372,18 @@ public class SPromise extends SObjectWithClass {
     return true;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
+  /** Internal Helper, the state might change concurrently, unless it is completed. */
   final boolean isResolvedUnsync() {
     return resolutionState == Resolution.SUCCESSFUL;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
+  /** Internal Helper, the state might change concurrently, unless it is completed. */
   public final boolean isErroredUnsync() {
     return resolutionState == Resolution.ERRONEOUS;
   }
 
-  /** Internal Helper, only to be used properly synchronized. */
-  final Object getValueUnsync() {
+  /** Internal Helper, the state might change concurrently, unless it is completed. */
+  public final Object getValueUnsync() {
     return value;
   }
 
@@ -298,48 +456,6 @@ public class SPromise extends SObjectWithClass {
       return promise.assertNotCompleted();
     }
 
-    /**
-     * Handles the case when a promise is resolved with a proper value
-     * and previously has been chained with other promises.
-     */
-    // TODO: solve the TODO and then remove the TruffleBoundary, this might even need to go
-    // into a node
-    @TruffleBoundary
-    protected static void resolveChainedPromisesUnsync(final Resolution type,
-        final SPromise promise, final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      // TODO: we should change the implementation of chained promises to
-      // always move all the handlers to the other promise, then we
-      // don't need to worry about traversing the chain, which can
-      // lead to a stack overflow.
-      // TODO: restore 10000 as parameter in testAsyncDeeplyChainedResolution
-      if (promise.chainedPromise != null) {
-        Object wrapped = promise.chainedPromise.owner.wrapForUse(result, current, null);
-        resolveAndTriggerListenersUnsynced(type, result, wrapped,
-            promise.chainedPromise, current, actorPool,
-            promise.chainedPromise.haltOnResolution);
-        resolveMoreChainedPromisesUnsynced(type, promise, result, current,
-            actorPool, haltOnResolution);
-      }
-    }
-
-    /**
-     * Resolve the other promises that has been chained to the first promise.
-     */
-    @TruffleBoundary
-    private static void resolveMoreChainedPromisesUnsynced(final Resolution type,
-        final SPromise promise, final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      if (promise.chainedPromiseExt != null) {
-
-        for (SPromise p : promise.chainedPromiseExt) {
-          Object wrapped = p.owner.wrapForUse(result, current, null);
-          resolveAndTriggerListenersUnsynced(type, result, wrapped, p, current,
-              actorPool, haltOnResolution);
-        }
-      }
-    }
-
     /**
      * Resolution of a promise with a proper value.
      * All callbacks for this promise are going to be scheduled.
@@ -347,7 +463,7 @@ public class SPromise extends SObjectWithClass {
      */
     protected static void resolveAndTriggerListenersUnsynced(final Resolution type,
         final Object result, final Object wrapped, final SPromise p,
-        final Actor current, final ForkJoinPool actorPool,
+        final Actor current, final ActorScheduler actorPool,
         final boolean haltOnResolution) {
       assert !(result instanceof SPromise);
 
@@ -370,77 +486,64 @@ public class SPromise extends SObjectWithClass {
         }
       }
 
-      // LOCKING NOTE: we need a synchronization unit that is not the promise,
-      // because otherwise we might end up in a deadlock, but we still need to group the
-      // scheduling of messages and the propagation of the resolution state, otherwise
-      // we might see message ordering issues
-      synchronized (wrapped) {
-        // LOCKING NOTE: We can split the scheduling out of the synchronized
-        // because after resolving the promise, all clients will schedule their
-        // callbacks/msg themselves
-        synchronized (p) {
-          assert p.assertNotCompleted();
-          // TODO: is this correct? can we just resolve chained promises like this? this means,
-          // their state changes twice. I guess it is ok, not sure about synchronization
-          // thought. They are created as 'chained', and then there is the resolute propagation
-          // accross chained promisses
-          // TODO use a special constructor to create chained promises???
-          p.value = wrapped;
-          p.resolutionState = type;
-        }
-
-        if (type == Resolution.SUCCESSFUL) {
-          scheduleAllWhenResolvedUnsync(p, result, current, actorPool, haltOnResolution);
-        } else {
-          assert type == Resolution.ERRONEOUS;
-          scheduleAllOnErrorUnsync(p, result, current, actorPool, haltOnResolution);
-        }
-        resolveChainedPromisesUnsync(type, p, result, current, actorPool, haltOnResolution);
+      assert p.assertNotCompleted();
+      // TODO: is this correct? can we just resolve chained promises like this? this means,
+      // their state changes twice. I guess it is ok, not sure about synchronization
+      // thought. They are created as 'chained', and then there is the resolute propagation
+      // accross chained promisses
+      // TODO use a special constructor to create chained promises???
+      p.value = wrapped;
+      p.resolutionState = type;
+
+      // registrations that race with the resolution end up in a later batch,
+      // which keeps the callbacks in the order of registration
+      Registration batch = p.takeRegistrationsOrComplete();
+      Registration waiters = null;
+      while (batch != null) {
+        scheduleRegistrations(type, p, batch, result, current, actorPool, haltOnResolution);
+        waiters = Registration.takeWaiters(batch, waiters);
+        batch = p.takeRegistrationsOrComplete();
       }
-    }
 
-    /**
-     * Schedule all whenResolved callbacks for the promise.
-     */
-    protected static void scheduleAllWhenResolvedUnsync(final SPromise promise,
-        final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      if (promise.whenResolved != null) {
-        promise.scheduleCallbacksOnResolution(result, promise.whenResolved,
-            current, actorPool, haltOnResolution);
-        scheduleExtensions(promise, promise.whenResolvedExt, result, current,
-            actorPool, haltOnResolution);
+      // waiters can only continue once the promise is completed
+      if (waiters != null) {
+        Registration.unparkWaiters(waiters);
       }
     }
 
     /**
-     * Schedule callbacks from the whenResolvedExt extension array.
+     * Schedule the callbacks of the batch that match the resolution, and
+     * resolve the promises that have been chained to the resolved promise.
      */
+    // TODO: solve the TODO and then remove the TruffleBoundary, this might even need to go
+    // into a node
     @TruffleBoundary
-    private static void scheduleExtensions(final SPromise promise,
-        final ArrayList<PromiseMessage> extension,
-        final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      if (extension != null) {
-        for (int i = 0; i < extension.size(); i++) {
-          PromiseMessage callbackOrMsg = extension.get(i);
-          promise.scheduleCallbacksOnResolution(result, callbackOrMsg, current,
-              actorPool, haltOnResolution);
+    private static void scheduleRegistrations(final Resolution type,
+        final SPromise promise, final Registration batch, final Object result,
+        final Actor current, final ActorScheduler actorPool,
+        final boolean haltOnResolution) {
+      byte callbackKind = type == Resolution.SUCCESSFUL
+          ? Registration.WHEN_RESOLVED : Registration.ON_ERROR;
+
+      for (Registration r = batch; r != null; r = r.next) {
+        if (r.kind == callbackKind) {
+          promise.scheduleCallbacksOnResolution(result,
+              (PromiseMessage) r.callbackOrPromise, current, actorPool, haltOnResolution);
         }
       }
-    }
 
-    /**
-     * Schedule all onError callbacks for the promise.
-     */
-    protected static void scheduleAllOnErrorUnsync(final SPromise promise,
-        final Object result, final Actor current,
-        final ForkJoinPool actorPool, final boolean haltOnResolution) {
-      if (promise.onError != null) {
-        promise.scheduleCallbacksOnResolution(result, promise.onError, current,
-            actorPool, haltOnResolution);
-        scheduleExtensions(promise, promise.onErrorExt, result, current,
-            actorPool, haltOnResolution);
+      // TODO: we should change the implementation of chained promises to
+      // always move all the handlers to the other promise, then we
+      // don't need to worry about traversing the chain, which can
+      // lead to a stack overflow.
+      // TODO: restore 10000 as parameter in testAsyncDeeplyChainedResolution
+      for (Registration r = batch; r != null; r = r.next) {
+        if (r.kind == Registration.CHAINED) {
+          SPromise chained = (SPromise) r.callbackOrPromise;
+          Object wrapped = chained.owner.wrapForUse(result, current, null);
+          resolveAndTriggerListenersUnsynced(type, result, wrapped, chained, current,
+              actorPool, chained.haltOnResolution);
+        }
       }
     }
   }
@@ -1,7 +1,5 @@
 package som.interpreter.actors;
 
-import java.util.concurrent.ForkJoinPool;
-
 import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.nodes.Node;
@@ -13,8 +11,8 @@ import som.interpreter.actors.EventualMessage.PromiseSendMessage;
 
 
 /**
- * WARNING: This node needs to be used in a context that makes sure
- * that access to the promise is properly synchronized!
+ * WARNING: This node may only be used for completed promises, i.e., when
+ * registering the callback/msg failed, because the promise was completed.
  */
 public abstract class SchedulePromiseHandlerNode extends Node {
 
@@ -22,9 +20,9 @@ public abstract class SchedulePromiseHandlerNode extends Node {
     return WrapReferenceNodeGen.create();
   }
 
-  private final ForkJoinPool actorPool;
+  private final ActorScheduler actorPool;
 
-  protected SchedulePromiseHandlerNode(final ForkJoinPool actorPool) {
+  protected SchedulePromiseHandlerNode(final ActorScheduler actorPool) {
     this.actorPool = actorPool;
   }
 
@@ -84,7 +84,13 @@ public final class TransferObject {
   public static STransferArray transfer(final STransferArray arr,
       final Actor origin, final Actor target,
       final Map<SAbstractObject, SAbstractObject> transferedObjects) {
-    STransferArray newObj = arr.cloneBasics();
+    STransferArray newObj;
+    if (arr.isMovedOnTransfer()) {
+      // the sender gave up the array, the elements are wrapped in place
+      newObj = arr.takeStorage();
+    } else {
+      newObj = arr.cloneBasics();
+    }
 
     if (newObj.isSomePrimitiveType() || newObj.isEmptyType()) {
       return newObj; // we are done in this case
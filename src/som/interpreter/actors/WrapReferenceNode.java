@@ -65,7 +65,7 @@ public abstract class WrapReferenceNode extends Node {
   @Specialization(
       guards = {"isNeitherFarRefNorPromise(obj)", "!isValue(obj)", "!isTransferObj(obj)"})
   public Object isNotValueObject(final Object obj, final Actor target, final Actor owner) {
-    return new SFarReference(owner, obj);
+    return owner.getFarReference(obj);
   }
 
   @Specialization(guards = {"isTransferObj(obj)"})
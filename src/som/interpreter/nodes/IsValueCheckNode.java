@@ -1,13 +1,17 @@
 package som.interpreter.nodes;
 
+import org.graalvm.collections.MapCursor;
+
 import com.oracle.truffle.api.frame.VirtualFrame;
 import com.oracle.truffle.api.instrumentation.InstrumentableFactory.WrapperNode;
 import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.source.SourceSection;
 
 import som.VM;
+import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.TruffleCompiler;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
+import som.interpreter.objectstorage.StorageLocation;
 import som.primitives.ObjectPrims.IsValue;
 import som.vm.constants.KernelObj;
 import som.vmobjects.SObject.SImmutableObject;
@@ -98,38 +102,11 @@ public abstract class IsValueCheckNode extends UnaryExpressionNode {
     private boolean allFieldsContainValues(final SImmutableObject rcvr) {
       VM.thisMethodNeedsToBeOptimized("Should be optimized or on slowpath");
 
-      if (rcvr.field1 == null) {
-        return true;
-      }
-
-      boolean result = IsValue.isObjectValue(rcvr.field1);
-      if (rcvr.field2 == null || !result) {
-        return result;
-      }
-
-      result = result && IsValue.isObjectValue(rcvr.field2);
-      if (rcvr.field3 == null || !result) {
-        return result;
-      }
-
-      result = result && IsValue.isObjectValue(rcvr.field3);
-      if (rcvr.field4 == null || !result) {
-        return result;
-      }
-
-      result = result && IsValue.isObjectValue(rcvr.field4);
-      if (rcvr.field5 == null || !result) {
-        return result;
-      }
-
-      result = result && IsValue.isObjectValue(rcvr.field5);
-      if (rcvr.getExtensionObjFields() == null || !result) {
-        return result;
-      }
-
-      Object[] ext = rcvr.getExtensionObjFields();
-      for (Object o : ext) {
-        if (!IsValue.isObjectValue(o)) {
+      MapCursor<SlotDefinition, StorageLocation> loc =
+          rcvr.getObjectLayout().getStorageLocations().getEntries();
+      while (loc.advance()) {
+        StorageLocation location = loc.getValue();
+        if (location.isSet(rcvr) && !IsValue.isObjectValue(location.read(rcvr))) {
           return false;
         }
       }
@@ -24,10 +24,6 @@ public final class GenericDispatchNode extends AbstractGenericDispatchNode {
   @Override
   @TruffleBoundary
   protected Dispatchable doLookup(final SClass rcvrClass) {
-    if (mixinId != null) {
-      return rcvrClass.lookupPrivate(selector, mixinId);
-    } else {
-      return rcvrClass.lookupMessage(selector, minimalVisibility);
-    }
+    return LookupCache.lookup(rcvrClass, selector, minimalVisibility, mixinId);
   }
 }
@@ -0,0 +1,115 @@
+package som.interpreter.nodes.dispatch;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import som.Output;
+import som.compiler.AccessModifier;
+import som.compiler.MixinBuilder.MixinDefinitionId;
+import som.vm.VmSettings;
+import som.vmobjects.SClass;
+import som.vmobjects.SSymbol;
+
+
+/**
+ * VM-wide cache for the lookups of megamorphic send sites, which otherwise
+ * walk the class hierarchy on every send.
+ *
+ * <p>
+ * The cache is a fixed-size, direct-mapped table of immutable entries.
+ * Threads read and replace entries without synchronization, because an
+ * entry is either seen completely or not at all. All entries are
+ * invalidated at once, by incrementing the epoch, whenever the structure of
+ * a class is initialized, i.e., when a class is created or a mixin applied.
+ *
+ * <p>
+ * With -Dsom.lookupCacheStats=true, hits and misses are reported at VM exit.
+ */
+public final class LookupCache {
+  private static final int SIZE = 4096; // needs to be a power of two
+
+  private static final Entry[]       entries = new Entry[SIZE];
+  private static final AtomicInteger epoch   = new AtomicInteger();
+
+  private static final LongAdder hits   = new LongAdder();
+  private static final LongAdder misses = new LongAdder();
+
+  private LookupCache() {}
+
+  private static final class Entry {
+    private final SClass       rcvrClass;
+    private final SSymbol      selector;
+    private final Object       visibility;
+    private final Dispatchable dispatchable;
+    private final int          epoch;
+
+    Entry(final SClass rcvrClass, final SSymbol selector, final Object visibility,
+        final Dispatchable dispatchable, final int epoch) {
+      this.rcvrClass = rcvrClass;
+      this.selector = selector;
+      this.visibility = visibility;
+      this.dispatchable = dispatchable;
+      this.epoch = epoch;
+    }
+  }
+
+  /**
+   * Looks up a private method, if the mixin id is given, and otherwise a
+   * method with at least the given visibility.
+   *
+   * @return the dispatchable, or null if the lookup failed
+   */
+  @TruffleBoundary
+  public static Dispatchable lookup(final SClass rcvrClass, final SSymbol selector,
+      final AccessModifier minimalVisibility, final MixinDefinitionId mixinId) {
+    Object visibility = mixinId != null ? mixinId : minimalVisibility;
+    int currentEpoch = epoch.get();
+    int idx = index(rcvrClass, selector, visibility);
+
+    Entry e = entries[idx];
+    if (e != null && e.epoch == currentEpoch && e.rcvrClass == rcvrClass
+        && e.selector == selector && e.visibility == visibility) {
+      if (VmSettings.LOOKUP_CACHE_STATS) {
+        hits.increment();
+      }
+      return e.dispatchable;
+    }
+
+    if (VmSettings.LOOKUP_CACHE_STATS) {
+      misses.increment();
+    }
+
+    Dispatchable disp;
+    if (mixinId != null) {
+      disp = rcvrClass.lookupPrivate(selector, mixinId);
+    } else {
+      disp = rcvrClass.lookupMessage(selector, minimalVisibility);
+    }
+
+    // entries use the epoch from before the lookup, so that a lookup
+    // racing with an invalidation does not leave a valid stale entry
+    entries[idx] = new Entry(rcvrClass, selector, visibility, disp, currentEpoch);
+    return disp;
+  }
+
+  private static int index(final SClass rcvrClass, final SSymbol selector,
+      final Object visibility) {
+    int h = System.identityHashCode(rcvrClass);
+    h = h * 31 + System.identityHashCode(selector);
+    h = h * 31 + System.identityHashCode(visibility);
+    return (h ^ (h >>> 16)) & (SIZE - 1);
+  }
+
+  public static void invalidate() {
+    epoch.incrementAndGet();
+  }
+
+  public static void reportStats() {
+    if (!VmSettings.LOOKUP_CACHE_STATS) {
+      return;
+    }
+    Output.println("[Lookup Cache] hits: " + hits.sum() + "\tmisses: " + misses.sum());
+  }
+}
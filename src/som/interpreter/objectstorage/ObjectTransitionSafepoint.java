@@ -1,6 +1,9 @@
 package som.interpreter.objectstorage;
 
-import java.util.concurrent.Phaser;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerAsserts;
@@ -12,6 +15,7 @@ import som.compiler.MixinDefinition.SlotDefinition;
 import som.vmobjects.SObject;
 import som.vmobjects.SObject.SImmutableObject;
 import som.vmobjects.SObject.SMutableObject;
+import tools.concurrency.TracingActivityThread;
 
 
 /**
@@ -20,7 +24,18 @@ import som.vmobjects.SObject.SMutableObject;
  *
  * <p>
  * These safepoints are necessary for the thread-safe dynamic object model
- * implemented here.
+ * implemented here. Objects that are local to the current thread, see
+ * {@link SObject#isLocal()}, are updated directly, without a safepoint.
+ *
+ * <p>
+ * Each thread that executes SOMns code has a {@link ThreadState}. Worker
+ * threads register it once, when they start. Afterwards, entering and
+ * leaving SOMns code, for instance for each actor turn, only updates the
+ * thread's own state. A safepoint waits only for threads that are running
+ * SOMns code, and threads that enter it during a safepoint wait until the
+ * safepoint is completed. Waiting threads park. The initiator unparks them
+ * at the end of the safepoint, and threads that stop running unpark the
+ * initiator.
  *
  * <p>
  * Inspired by: Techniques and Applications for Guest-Language Safepoints.
@@ -28,11 +43,37 @@ import som.vmobjects.SObject.SMutableObject;
  * DOI: 10.1145/2843915.2843921
  */
 public final class ObjectTransitionSafepoint {
-  @CompilationFinal private Phaser     phaser;
+
+  /**
+   * Tells whether a thread runs SOMns code, and thus, needs to take part in
+   * safepoints. Only written by its thread.
+   */
+  public static final class ThreadState {
+    private volatile boolean running;
+
+    /** Number of nested {@link ObjectTransitionSafepoint#register()} calls. */
+    private int depth;
+  }
+
+  private final CopyOnWriteArrayList<ThreadState> threads;
+  private final AtomicBoolean                     inProgress;
+
+  /** Threads waiting for the end of the safepoint in progress. */
+  private final ConcurrentLinkedQueue<Thread> waitingForEnd;
+
+  /** The thread that waits for the others to stop, while starting a safepoint. */
+  private volatile Thread initiator;
+
+  /** State of threads that are not {@link TracingActivityThread}s. */
+  private final ThreadLocal<ThreadState> otherThreads;
+
   @CompilationFinal private Assumption noSafePoint;
 
   private ObjectTransitionSafepoint() {
-    phaser = new Phaser();
+    threads = new CopyOnWriteArrayList<>();
+    inProgress = new AtomicBoolean(false);
+    waitingForEnd = new ConcurrentLinkedQueue<>();
+    otherThreads = ThreadLocal.withInitial(ThreadState::new);
     noSafePoint = create();
   }
 
@@ -40,13 +81,36 @@ public final class ObjectTransitionSafepoint {
    * Only to be used in tests.
    */
   public static void reset() {
-    INSTANCE.phaser = new Phaser();
+    INSTANCE.threads.clear();
+    INSTANCE.waitingForEnd.clear();
+    INSTANCE.initiator = null;
+    INSTANCE.inProgress.set(false);
   }
 
   private static Assumption create() {
     return Truffle.getRuntime().createAssumption("Object Transition SafePoint");
   }
 
+  /**
+   * Registers the state of a worker thread. Is called once, when the thread
+   * starts.
+   */
+  public void registerThread(final ThreadState state) {
+    threads.add(state);
+  }
+
+  public void unregisterThread(final ThreadState state) {
+    threads.remove(state);
+  }
+
+  private ThreadState getCurrentState() {
+    Thread current = Thread.currentThread();
+    if (current instanceof TracingActivityThread) {
+      return ((TracingActivityThread) current).getSafepointState();
+    }
+    return otherThreads.get();
+  }
+
   /**
    * Registers a thread on the safepoint.
    *
@@ -54,11 +118,19 @@ public final class ObjectTransitionSafepoint {
    * Needs to be called by all threads that interact with Smalltalk objects
    * in some way. Thus, all threads that access {@link SMutableObject} or
    * {@link SImmutableObject} at some point of their lifetime need to register.
+   * For worker threads, it only marks them as running SOMns code.
    */
   public void register() {
     CompilerAsserts.neverPartOfCompilation(
         "Register is expect to be a rare operation and not part of compilation.");
-    phaser.register();
+    ThreadState state = getCurrentState();
+    if (state.depth == 0) {
+      if (!(Thread.currentThread() instanceof TracingActivityThread)) {
+        threads.add(state);
+      }
+      enter(state);
+    }
+    state.depth += 1;
   }
 
   /**
@@ -72,7 +144,59 @@ public final class ObjectTransitionSafepoint {
   public void unregister() {
     CompilerAsserts.neverPartOfCompilation(
         "Unregister is expect to be a rare operation and not part of compilation.");
-    phaser.arriveAndDeregister();
+    ThreadState state = getCurrentState();
+    assert state.depth > 0;
+    state.depth -= 1;
+    if (state.depth == 0) {
+      stop(state);
+      if (!(Thread.currentThread() instanceof TracingActivityThread)) {
+        threads.remove(state);
+      }
+    }
+  }
+
+  /**
+   * Marks the thread as running, but waits for a safepoint that is in
+   * progress. The initiator of a safepoint sets {@link #inProgress} before
+   * reading the thread states, so one of them sees the other's write.
+   */
+  private void enter(final ThreadState state) {
+    state.running = true;
+    while (inProgress.get()) {
+      stop(state);
+      awaitSafepointEnd();
+      state.running = true;
+    }
+  }
+
+  /**
+   * Marks the thread as not running. The initiator of a safepoint sets
+   * {@link #initiator} before reading the thread states, so it either sees
+   * the thread stopped, or gets unparked.
+   */
+  private void stop(final ThreadState state) {
+    state.running = false;
+    Thread waiting = initiator;
+    if (waiting != null) {
+      LockSupport.unpark(waiting);
+    }
+  }
+
+  private void awaitSafepointEnd() {
+    if (!inProgress.get()) {
+      return;
+    }
+
+    Thread current = Thread.currentThread();
+    waitingForEnd.add(current);
+    try {
+      // re-check after announcing, the initiator unparks after the end
+      while (inProgress.get()) {
+        LockSupport.park(this);
+      }
+    } finally {
+      waitingForEnd.remove(current);
+    }
   }
 
   /**
@@ -96,6 +220,11 @@ public final class ObjectTransitionSafepoint {
    * @param obj to be transitioned.
    */
   public void transitionObject(final SObject obj) {
+    if (obj.isLocal()) {
+      obj.updateLayoutToMatchClass();
+      return;
+    }
+
     waitForSafepointStart();
 
     // Safepoint phase, used to update the object
@@ -114,6 +243,11 @@ public final class ObjectTransitionSafepoint {
    */
   public void writeUninitializedSlot(final SObject obj, final SlotDefinition slot,
       final Object value) {
+    if (obj.isLocal()) {
+      obj.writeUninitializedSlot(slot, value);
+      return;
+    }
+
     waitForSafepointStart();
 
     // Safepoint phase, used to update the object
@@ -132,6 +266,11 @@ public final class ObjectTransitionSafepoint {
    */
   public void writeAndGeneralizeSlot(final SObject obj, final SlotDefinition slot,
       final Object value) {
+    if (obj.isLocal()) {
+      obj.writeAndGeneralizeSlot(slot, value);
+      return;
+    }
+
     waitForSafepointStart();
 
     // Safepoint phase, used to update the object
@@ -142,16 +281,14 @@ public final class ObjectTransitionSafepoint {
   }
 
   private void replaceAssumptionAndWaitForSafepointEnd() {
-    // update the assumption
-    synchronized (this) {
-      // might have been replaced by another thread already
-      if (!noSafePoint.isValid()) {
-        noSafePoint = create();
-      }
-    }
+    noSafePoint = create();
 
-    // Wait for all threads to be done with transitioning objects
-    phaser.arriveAndAwaitAdvance();
+    // let the other threads continue
+    initiator = null;
+    inProgress.set(false);
+    for (Thread t : waitingForEnd) {
+      LockSupport.unpark(t);
+    }
   }
 
   private void waitForSafepointStart() {
@@ -159,14 +296,32 @@ public final class ObjectTransitionSafepoint {
     CompilerAsserts.neverPartOfCompilation(
         "Compilation not supported, expect to be in non-PEed code.");
 
+    // Another thread might start a safepoint at the same time, in which case,
+    // we take part in it, before we start our own
+    while (!inProgress.compareAndSet(false, true)) {
+      performSafepoint();
+    }
+
     // Ask all other threads to join in the safepoint
+    initiator = Thread.currentThread();
     noSafePoint.invalidate();
-    phaser.arriveAndAwaitAdvance();
+
+    ThreadState self = getCurrentState();
+    for (ThreadState t : threads) {
+      while (t != self && t.running) {
+        LockSupport.park(this);
+      }
+    }
   }
 
   private void performSafepoint() {
-    phaser.arriveAndAwaitAdvance(); // arrive to safepoint
-    phaser.arriveAndAwaitAdvance(); // await completion of object transition
+    ThreadState state = getCurrentState();
+    if (state.running) {
+      stop(state);
+      enter(state);
+    } else {
+      awaitSafepointEnd();
+    }
   }
 
   public static final ObjectTransitionSafepoint INSTANCE = new ObjectTransitionSafepoint();
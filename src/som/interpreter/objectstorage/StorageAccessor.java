@@ -10,6 +10,7 @@ import som.compiler.MixinDefinition.SlotDefinition;
 import som.vmobjects.SObject;
 import som.vmobjects.SObject.SImmutableObject;
 import som.vmobjects.SObject.SMutableObject;
+import som.vmobjects.SObject.SMutableObject5;
 import sun.misc.Unsafe;
 
 
@@ -21,7 +22,7 @@ import sun.misc.Unsafe;
  * object create the connection between the {@link ObjectLayout} and a
  * {@link SlotDefinition slot's} mapping to a specific memory location.
  * The available memory locations are defined in {@link SImmutableObject} and
- * {@link SMutableObject}.
+ * {@link SMutableObject}, and their subclasses, which add inlined fields.
  */
 public abstract class StorageAccessor {
   private static final Unsafe unsafe;
@@ -52,12 +53,27 @@ public abstract class StorageAccessor {
     return primAccessors[idx];
   }
 
+  /**
+   * The inlined fields are declared along the subclass chain that ends in
+   * {@link SMutableObject5}, which has all of them.
+   */
+  private static Field getInlinedField(final String name) throws NoSuchFieldException {
+    for (Class<?> c = SMutableObject5.class; c != SObject.class; c = c.getSuperclass()) {
+      try {
+        return c.getDeclaredField(name);
+      } catch (NoSuchFieldException e) {
+        // declared further up the chain
+      }
+    }
+    throw new NoSuchFieldException(name);
+  }
+
   private static AbstractObjectAccessor[] initObjectAccessors() {
     AbstractObjectAccessor[] accessors = new AbstractObjectAccessor[MAX_OBJECT_FIELDS];
 
     try {
       for (int i = 0; i < SObject.NUM_OBJECT_FIELDS; i += 1) {
-        Field field = SMutableObject.class.getDeclaredField("field" + (i + 1));
+        Field field = getInlinedField("field" + (i + 1));
         long offset = unsafe.objectFieldOffset(field);
         accessors[i] = new DirectObjectAccessor(offset);
       }
@@ -76,7 +92,7 @@ public abstract class StorageAccessor {
 
     try {
       for (int i = 0; i < SObject.NUM_PRIMITIVE_FIELDS; i += 1) {
-        Field field = SMutableObject.class.getDeclaredField("primField" + (i + 1));
+        Field field = getInlinedField("primField" + (i + 1));
         long offset = unsafe.objectFieldOffset(field);
         accessors[i] = new DirectPrimitiveAccessor(offset, i);
       }
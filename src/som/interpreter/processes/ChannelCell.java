@@ -0,0 +1,420 @@
+package som.interpreter.processes;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Transfers values from the output to the input end of a {@link SChannel}.
+ *
+ * <p>
+ * Processes run on the threads of a {@link ForkJoinPool}. When a process
+ * waits on a channel, it does so via a {@link ManagedBlocker}, so that the
+ * pool can compensate with another thread. Otherwise, a program with more
+ * communicating processes than pool threads can deadlock.
+ */
+public abstract class ChannelCell {
+
+  /**
+   * @param capacity of the buffer, 0 creates an unbuffered channel, for which
+   *          each write waits for a matching read
+   */
+  public static ChannelCell create(final int capacity) {
+    if (capacity == 0) {
+      return new Rendezvous();
+    } else {
+      return new RingBuffer(capacity);
+    }
+  }
+
+  /**
+   * Threads waiting in a {@link SChannel.Selector} for a value of this cell.
+   * Writers unpark all of them, after they made a value available.
+   */
+  private final ConcurrentLinkedQueue<Thread> selectors = new ConcurrentLinkedQueue<>();
+
+  public abstract void put(Object value) throws InterruptedException;
+
+  public abstract Object take() throws InterruptedException;
+
+  /** @return a value if one is available without waiting, otherwise null */
+  public abstract Object poll();
+
+  public final void addSelector(final Thread selector) {
+    selectors.add(selector);
+  }
+
+  public final void removeSelector(final Thread selector) {
+    selectors.remove(selector);
+  }
+
+  protected final void notifySelectors() {
+    for (Thread t : selectors) {
+      LockSupport.unpark(t);
+    }
+  }
+
+  /** Puts all values, in order. */
+  public void putAll(final Object[] values) throws InterruptedException {
+    for (Object v : values) {
+      put(v);
+    }
+  }
+
+  /**
+   * Waits for at least one value, and then takes as many values as are
+   * available without waiting, up to the length of the given array.
+   *
+   * @return the number of values taken
+   */
+  public abstract int takeInto(Object[] values) throws InterruptedException;
+
+  /**
+   * Hands each value directly from a writer to a reader.
+   *
+   * <p>
+   * A writer offers its value in a queue of pending writes, and parks until
+   * a reader took it. Readers, and selectors, take the oldest pending write,
+   * and unpark its writer. When there is none, readers park until a writer
+   * unparks them. Thus, a value is visible to selectors for as long as the
+   * writer waits.
+   */
+  public static final class Rendezvous extends ChannelCell {
+    private final ConcurrentLinkedQueue<PendingWrite> pendingWrites;
+    private final ConcurrentLinkedQueue<Thread>       waitingReaders;
+
+    public Rendezvous() {
+      pendingWrites = new ConcurrentLinkedQueue<>();
+      waitingReaders = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override
+    public void put(final Object value) throws InterruptedException {
+      PendingWrite write = new PendingWrite(value, Thread.currentThread());
+      pendingWrites.add(write);
+      RingBuffer.wakeUp(waitingReaders);
+      notifySelectors();
+
+      if (!write.isTaken()) {
+        ForkJoinPool.managedBlock(write);
+      }
+    }
+
+    @Override
+    public Object take() throws InterruptedException {
+      Object value = poll();
+      if (value == null) {
+        TakeBlocker blocker = new TakeBlocker();
+        ForkJoinPool.managedBlock(blocker);
+        value = blocker.value;
+      }
+      return value;
+    }
+
+    @Override
+    public Object poll() {
+      PendingWrite write;
+      while ((write = pendingWrites.poll()) != null) {
+        if (write.take()) {
+          return write.value;
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public int takeInto(final Object[] values) throws InterruptedException {
+      if (values.length == 0) {
+        return 0;
+      }
+
+      values[0] = take();
+      int i = 1;
+      while (i < values.length) {
+        Object v = poll();
+        if (v == null) {
+          break;
+        }
+        values[i] = v;
+        i += 1;
+      }
+      return i;
+    }
+
+    /** A value offered by a writer, which waits until a reader takes it. */
+    private static final class PendingWrite implements ManagedBlocker {
+      private static final int WAITING   = 0;
+      private static final int TAKEN     = 1;
+      private static final int CANCELLED = 2;
+
+      private static final AtomicIntegerFieldUpdater<PendingWrite> STATE =
+          AtomicIntegerFieldUpdater.newUpdater(PendingWrite.class, "state");
+
+      private final Object value;
+      private final Thread writer;
+
+      private volatile int state;
+
+      PendingWrite(final Object value, final Thread writer) {
+        this.value = value;
+        this.writer = writer;
+      }
+
+      boolean isTaken() {
+        return state == TAKEN;
+      }
+
+      /** @return true, if the value was taken by the caller */
+      boolean take() {
+        if (STATE.compareAndSet(this, WAITING, TAKEN)) {
+          LockSupport.unpark(writer);
+          return true;
+        }
+        return false;
+      }
+
+      @Override
+      public boolean isReleasable() {
+        return isTaken();
+      }
+
+      @Override
+      public boolean block() throws InterruptedException {
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          if (STATE.compareAndSet(this, WAITING, CANCELLED)) {
+            throw new InterruptedException();
+          }
+          // the value was taken already, the interrupt is for later
+          Thread.currentThread().interrupt();
+        }
+        return isTaken();
+      }
+    }
+
+    private final class TakeBlocker implements ManagedBlocker {
+      private Object value;
+
+      @Override
+      public boolean isReleasable() {
+        if (value == null) {
+          value = poll();
+        }
+        return value != null;
+      }
+
+      @Override
+      public boolean block() throws InterruptedException {
+        return RingBuffer.await(waitingReaders, this);
+      }
+    }
+  }
+
+  /**
+   * Bounded lock-free multi-producer multi-consumer ring buffer.
+   *
+   * <p>
+   * Each slot has a sequence number that tells whether the slot can be
+   * written or read for a given position, as described by D. Vyukov for his
+   * bounded MPMC queue. Writers wait only when the buffer is full, and
+   * readers only when it is empty. Waiting threads park until the other side
+   * unparks them.
+   *
+   * <p>
+   * The sequence numbers need at least two slots. A buffer with a capacity
+   * of one uses two slots, and bounds the number of values explicitly.
+   */
+  public static final class RingBuffer extends ChannelCell {
+    private final int             capacity;
+    private final int             slots;
+    private final Object[]        buffer;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong head;
+    private final AtomicLong tail;
+
+    private final ConcurrentLinkedQueue<Thread> waitingReaders;
+    private final ConcurrentLinkedQueue<Thread> waitingWriters;
+
+    public RingBuffer(final int capacity) {
+      assert capacity > 0;
+      this.capacity = capacity;
+      this.slots = Math.max(2, capacity);
+      this.buffer = new Object[slots];
+      this.sequences = new AtomicLongArray(slots);
+      for (int i = 0; i < slots; i++) {
+        sequences.set(i, i);
+      }
+      this.head = new AtomicLong(0);
+      this.tail = new AtomicLong(0);
+      this.waitingReaders = new ConcurrentLinkedQueue<>();
+      this.waitingWriters = new ConcurrentLinkedQueue<>();
+    }
+
+    private boolean offer(final Object value) {
+      while (true) {
+        long pos = tail.get();
+        if (slots > capacity && pos - head.get() >= capacity) {
+          return false; // full
+        }
+        int idx = (int) (pos % slots);
+        long diff = sequences.get(idx) - pos;
+        if (diff == 0) {
+          if (tail.compareAndSet(pos, pos + 1)) {
+            buffer[idx] = value;
+            sequences.set(idx, pos + 1);
+            return true;
+          }
+        } else if (diff < 0) {
+          return false; // full
+        }
+      }
+    }
+
+    /** Takes a value, and lets a writer continue, which waits for space. */
+    @Override
+    public Object poll() {
+      Object value = dequeue();
+      if (value != null) {
+        wakeUp(waitingWriters);
+      }
+      return value;
+    }
+
+    private Object dequeue() {
+      while (true) {
+        long pos = head.get();
+        int idx = (int) (pos % slots);
+        long diff = sequences.get(idx) - (pos + 1);
+        if (diff == 0) {
+          if (head.compareAndSet(pos, pos + 1)) {
+            Object value = buffer[idx];
+            buffer[idx] = null;
+            sequences.set(idx, pos + slots);
+            return value;
+          }
+        } else if (diff < 0) {
+          return null; // empty
+        }
+      }
+    }
+
+    static void wakeUp(final ConcurrentLinkedQueue<Thread> waiting) {
+      Thread t = waiting.poll();
+      if (t != null) {
+        LockSupport.unpark(t);
+      }
+    }
+
+    /**
+     * Parks the current thread, after announcing it in the given queue, and
+     * re-checking the condition, to not miss a concurrent wake up.
+     * A thread that was woken up, but does not need it, because it got a
+     * value or space by itself, passes the wake up on.
+     */
+    static boolean await(final ConcurrentLinkedQueue<Thread> waiting,
+        final ManagedBlocker blocker) throws InterruptedException {
+      Thread current = Thread.currentThread();
+      waiting.add(current);
+      boolean waitsAgain = false;
+      try {
+        if (blocker.isReleasable()) {
+          return true;
+        }
+        LockSupport.park(blocker);
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+        waitsAgain = !blocker.isReleasable();
+        return !waitsAgain;
+      } finally {
+        if (!waiting.remove(current) && !waitsAgain) {
+          wakeUp(waiting);
+        }
+      }
+    }
+
+    @Override
+    public void put(final Object value) throws InterruptedException {
+      if (!offer(value)) {
+        ForkJoinPool.managedBlock(new PutBlocker(value));
+      }
+      wakeUp(waitingReaders);
+      notifySelectors();
+    }
+
+    @Override
+    public Object take() throws InterruptedException {
+      Object value = poll();
+      if (value == null) {
+        TakeBlocker blocker = new TakeBlocker();
+        ForkJoinPool.managedBlock(blocker);
+        value = blocker.value;
+      }
+      return value;
+    }
+
+    private final class PutBlocker implements ManagedBlocker {
+      private final Object value;
+      private boolean      done;
+
+      PutBlocker(final Object value) {
+        this.value = value;
+      }
+
+      @Override
+      public boolean isReleasable() {
+        if (!done) {
+          done = offer(value);
+        }
+        return done;
+      }
+
+      @Override
+      public boolean block() throws InterruptedException {
+        return await(waitingWriters, this);
+      }
+    }
+
+    private final class TakeBlocker implements ManagedBlocker {
+      private Object value;
+
+      @Override
+      public boolean isReleasable() {
+        if (value == null) {
+          value = poll();
+        }
+        return value != null;
+      }
+
+      @Override
+      public boolean block() throws InterruptedException {
+        return await(waitingReaders, this);
+      }
+    }
+
+    @Override
+    public int takeInto(final Object[] values) throws InterruptedException {
+      if (values.length == 0) {
+        return 0;
+      }
+
+      values[0] = take();
+      int i = 1;
+      while (i < values.length) {
+        Object v = poll();
+        if (v == null) {
+          break;
+        }
+        values[i] = v;
+        i += 1;
+      }
+      return i;
+    }
+  }
+}
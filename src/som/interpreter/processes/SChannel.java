@@ -1,6 +1,10 @@
 package som.interpreter.processes;
 
-import java.util.concurrent.SynchronousQueue;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
@@ -15,11 +19,15 @@ import tools.concurrency.TracingChannel.TracingChannelOutput;
 
 public class SChannel extends SAbstractObject {
 
-  public static SChannel create() {
+  /**
+   * @param capacity of the channel's buffer, with 0, writes wait for a
+   *          matching read
+   */
+  public static SChannel create(final int capacity) {
     if (VmSettings.ACTOR_TRACING) {
-      return new TracingChannel();
+      return new TracingChannel(capacity);
     } else {
-      return new SChannel();
+      return new SChannel(capacity);
     }
   }
 
@@ -32,11 +40,11 @@ public class SChannel extends SAbstractObject {
   /** Indicate that a breakpoint on the reader requested a suspension on write. */
   private volatile boolean breakAfterWrite;
 
-  protected SChannel() {
+  protected SChannel(final int capacity) {
     breakAfterRead = false;
     breakAfterWrite = false;
 
-    SynchronousQueue<Object> cell = new SynchronousQueue<>();
+    ChannelCell cell = ChannelCell.create(capacity);
 
     out = SChannelOutput.create(cell, this);
     in = SChannelInput.create(cell, this);
@@ -57,8 +65,150 @@ public class SChannel extends SAbstractObject {
     return false;
   }
 
+  /**
+   * Waits for the first of several inputs to have a value, and reads it.
+   *
+   * <p>
+   * The selecting thread registers itself once with the cell of each distinct
+   * input, and checks them again afterwards, to not miss a value that arrived
+   * in between. Writers unpark it when they make a value available. Inputs are
+   * checked starting at a random index, so that no input is starved.
+   */
+  public static final class Selector implements ManagedBlocker {
+    private final SChannelInput[] inputs;
+    private final ChannelCell[]   cells;
+    private final long            deadline;
+    private final boolean         hasDeadline;
+
+    private int     index;
+    private Object  value;
+    private boolean timedOut;
+    private boolean registered;
+
+    /**
+     * @param timeoutNanos how long to wait for a value, negative to wait
+     *          indefinitely
+     */
+    private Selector(final SChannelInput[] inputs, final long timeoutNanos) {
+      assert inputs.length > 0 : "Without inputs, a selector would wait forever";
+      this.inputs = inputs;
+      this.cells = distinctCells(inputs);
+      this.hasDeadline = timeoutNanos >= 0;
+      this.deadline = hasDeadline ? System.nanoTime() + timeoutNanos : 0;
+      this.index = -1;
+    }
+
+    /**
+     * The same input may be given more than once, but the thread is only
+     * registered once with each cell, because removing it again removes only
+     * one registration.
+     */
+    private static ChannelCell[] distinctCells(final SChannelInput[] inputs) {
+      ChannelCell[] cells = new ChannelCell[inputs.length];
+      int num = 0;
+      outer: for (SChannelInput in : inputs) {
+        for (int i = 0; i < num; i++) {
+          if (cells[i] == in.cell) {
+            continue outer;
+          }
+        }
+        cells[num] = in.cell;
+        num += 1;
+      }
+      return num == cells.length ? cells : Arrays.copyOf(cells, num);
+    }
+
+    /**
+     * @param timeoutNanos how long to wait for a value, negative to wait
+     *          indefinitely
+     * @return the selector holding the index of the input and the value read,
+     *         or an index of -1 on timeout
+     */
+    @TruffleBoundary
+    public static Selector select(final SChannelInput[] inputs, final long timeoutNanos)
+        throws InterruptedException {
+      Selector selector = new Selector(inputs, timeoutNanos);
+      if (!selector.isReleasable() && timeoutNanos != 0) {
+        try {
+          ForkJoinPool.managedBlock(selector);
+        } finally {
+          selector.unregister();
+        }
+      }
+      return selector;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (index >= 0 || timedOut) {
+        return true;
+      }
+
+      int start = ThreadLocalRandom.current().nextInt(inputs.length);
+      for (int i = 0; i < inputs.length; i++) {
+        int idx = (start + i) % inputs.length;
+        Object v = inputs[idx].poll();
+        if (v != null) {
+          index = idx;
+          value = v;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (!registered) {
+        Thread current = Thread.currentThread();
+        for (ChannelCell cell : cells) {
+          cell.addSelector(current);
+        }
+        registered = true;
+
+        // re-check after registering, to not miss a concurrent wake up
+        if (isReleasable()) {
+          return true;
+        }
+      }
+
+      if (hasDeadline) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          timedOut = true;
+          return true;
+        }
+        LockSupport.parkNanos(this, remaining);
+      } else {
+        LockSupport.park(this);
+      }
+
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      return isReleasable();
+    }
+
+    private void unregister() {
+      if (registered) {
+        Thread current = Thread.currentThread();
+        for (ChannelCell cell : cells) {
+          cell.removeSelector(current);
+        }
+      }
+    }
+  }
+
   public static class SChannelInput extends SAbstractObject {
-    public static SChannelInput create(final SynchronousQueue<Object> cell,
+    public static SChannelInput create(final ChannelCell cell,
         final SChannel channel) {
       if (VmSettings.ACTOR_TRACING) {
         return new TracingChannelInput(cell, channel);
@@ -67,11 +217,10 @@ public class SChannel extends SAbstractObject {
       }
     }
 
-    private final SynchronousQueue<Object> cell;
-    protected final SChannel               channel;
+    private final ChannelCell cell;
+    protected final SChannel  channel;
 
-    public SChannelInput(final SynchronousQueue<Object> cell,
-        final SChannel channel) {
+    public SChannelInput(final ChannelCell cell, final SChannel channel) {
       this.cell = cell;
       this.channel = channel;
     }
@@ -81,6 +230,22 @@ public class SChannel extends SAbstractObject {
       return cell.take();
     }
 
+    /** @return a value if one is available without waiting, otherwise null */
+    public Object poll() {
+      return cell.poll();
+    }
+
+    /**
+     * Waits for at least one value, and then reads as many values as are
+     * available, up to the length of the given array.
+     *
+     * @return the number of values read
+     */
+    @TruffleBoundary
+    public int readInto(final Object[] values) throws InterruptedException {
+      return cell.takeInto(values);
+    }
+
     public final Object readAndSuspendWriter(final boolean doSuspend)
         throws InterruptedException {
       channel.breakAfterWrite = doSuspend;
@@ -104,7 +269,7 @@ public class SChannel extends SAbstractObject {
   }
 
   public static class SChannelOutput extends SAbstractObject {
-    public static SChannelOutput create(final SynchronousQueue<Object> cell,
+    public static SChannelOutput create(final ChannelCell cell,
         final SChannel channel) {
       if (VmSettings.ACTOR_TRACING) {
         return new TracingChannelOutput(cell, channel);
@@ -113,10 +278,10 @@ public class SChannel extends SAbstractObject {
       }
     }
 
-    private final SynchronousQueue<Object> cell;
-    protected final SChannel               channel;
+    private final ChannelCell cell;
+    protected final SChannel  channel;
 
-    protected SChannelOutput(final SynchronousQueue<Object> cell, final SChannel channel) {
+    protected SChannelOutput(final ChannelCell cell, final SChannel channel) {
       this.cell = cell;
       this.channel = channel;
     }
@@ -126,6 +291,12 @@ public class SChannel extends SAbstractObject {
       cell.put(value);
     }
 
+    /** Writes all values, in order. */
+    @TruffleBoundary
+    public void writeAll(final Object[] values) throws InterruptedException {
+      cell.putAll(values);
+    }
+
     public final void writeAndSuspendReader(final Object value,
         final boolean doSuspend) throws InterruptedException {
       channel.breakAfterRead = doSuspend;
@@ -1,5 +1,6 @@
 package som.interpreter.transactions;
 
+import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.nodes.dispatch.AbstractDispatchNode;
 import som.interpreter.nodes.dispatch.CachedSlotRead;
 import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
@@ -8,19 +9,17 @@ import som.vmobjects.SObject.SMutableObject;
 
 
 public final class CachedTxSlotRead extends CachedSlotRead {
-  @Child protected CachedSlotRead read;
+  private final SlotDefinition slot;
 
-  public CachedTxSlotRead(final SlotAccess type,
-      final CachedSlotRead read,
+  public CachedTxSlotRead(final SlotAccess type, final SlotDefinition slot,
       final CheckSObject guard, final AbstractDispatchNode nextInCache) {
     super(type, guard, nextInCache);
     assert type == SlotAccess.FIELD_READ;
-    this.read = read;
+    this.slot = slot;
   }
 
   @Override
   public Object read(final SObject rcvr) {
-    SMutableObject workingCopy = Transactions.workingCopy((SMutableObject) rcvr);
-    return read.read(workingCopy);
+    return Transactions.readSlot((SMutableObject) rcvr, slot);
   }
 }
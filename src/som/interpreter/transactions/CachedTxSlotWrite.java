@@ -1,5 +1,6 @@
 package som.interpreter.transactions;
 
+import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.nodes.dispatch.AbstractDispatchNode;
 import som.interpreter.nodes.dispatch.CachedSlotWrite;
 import som.interpreter.nodes.dispatch.DispatchGuard.CheckSObject;
@@ -8,17 +9,16 @@ import som.vmobjects.SObject.SMutableObject;
 
 
 public final class CachedTxSlotWrite extends CachedSlotWrite {
-  @Child protected CachedSlotWrite write;
+  private final SlotDefinition slot;
 
-  public CachedTxSlotWrite(final CachedSlotWrite write,
+  public CachedTxSlotWrite(final SlotDefinition slot,
       final CheckSObject guard, final AbstractDispatchNode nextInCache) {
     super(guard, nextInCache);
-    this.write = write;
+    this.slot = slot;
   }
 
   @Override
   public void doWrite(final SObject obj, final Object value) {
-    SMutableObject workingCopy = Transactions.workingCopy((SMutableObject) obj);
-    write.doWrite(workingCopy, value);
+    Transactions.writeSlot((SMutableObject) obj, slot, value);
   }
 }
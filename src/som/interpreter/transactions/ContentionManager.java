@@ -0,0 +1,121 @@
+package som.interpreter.transactions;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import som.vm.VmSettings;
+
+
+/**
+ * Decides how the transaction of an {@code atomic:} block is retried after
+ * it failed to commit.
+ *
+ * <p>
+ * The policy is selected with -Dsom.txContention, which is one of
+ * {@code immediate}, {@code backoff}, or {@code sizeScaled}. Independent of the
+ * policy, -Dsom.txIrrevocableAfter=N runs a transaction in serial
+ * irrevocable mode once it aborted N times, which guarantees progress for
+ * transactions that would otherwise livelock.
+ */
+public abstract class ContentionManager {
+
+  public static ContentionManager create() {
+    int irrevocableAfter = VmSettings.TX_IRREVOCABLE_AFTER;
+    switch (VmSettings.TX_CONTENTION_POLICY) {
+      case "immediate":
+        return new ImmediateRetry(irrevocableAfter);
+      case "backoff":
+        return new ExponentialBackoff(irrevocableAfter);
+      case "sizeScaled":
+        return new SizeScaledBackoff(irrevocableAfter);
+      default:
+        throw new IllegalArgumentException(
+            "Unknown transaction contention policy: " + VmSettings.TX_CONTENTION_POLICY);
+    }
+  }
+
+  /** Number of aborts after which a transaction becomes irrevocable, 0 means never. */
+  private final int irrevocableAfter;
+
+  protected ContentionManager(final int irrevocableAfter) {
+    this.irrevocableAfter = irrevocableAfter;
+  }
+
+  /**
+   * @param aborts of the transaction so far
+   * @return true, if the next attempt is to run in serial irrevocable mode
+   */
+  public final boolean runIrrevocably(final int aborts) {
+    return irrevocableAfter > 0 && aborts >= irrevocableAfter;
+  }
+
+  /**
+   * Called after a transaction aborted, before it is retried.
+   *
+   * @param aborts of the transaction so far, including this one
+   * @param accessed number of objects accessed by all attempts so far, which
+   *          grows with the work lost to aborts
+   */
+  public abstract void onAbort(int aborts, long accessed);
+
+  /** Retries right away. */
+  public static final class ImmediateRetry extends ContentionManager {
+    public ImmediateRetry(final int irrevocableAfter) {
+      super(irrevocableAfter);
+    }
+
+    @Override
+    public void onAbort(final int aborts, final long accessed) {}
+  }
+
+  /**
+   * Waits for a random time within a window that doubles with every abort,
+   * to spread out the retries of conflicting transactions.
+   */
+  public static class ExponentialBackoff extends ContentionManager {
+    protected static final long BASE_NANOS = 1000;
+    private static final int    MAX_SHIFT  = 10;
+
+    public ExponentialBackoff(final int irrevocableAfter) {
+      super(irrevocableAfter);
+    }
+
+    protected static long window(final int aborts) {
+      return BASE_NANOS << Math.min(aborts - 1, MAX_SHIFT);
+    }
+
+    @TruffleBoundary
+    protected static void backoff(final long window) {
+      LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(Math.max(window, 1)));
+    }
+
+    @Override
+    public void onAbort(final int aborts, final long accessed) {
+      backoff(window(aborts));
+    }
+  }
+
+  /**
+   * Backs off like {@link ExponentialBackoff}, but halves the window each
+   * time the number of objects accessed over all attempts doubles, down to
+   * {@link #MIN_WINDOW_NANOS}. Transactions that already lost much work thus
+   * retry sooner. Unlike karma schemes, it does not compare against the
+   * transaction that caused the conflict.
+   */
+  public static final class SizeScaledBackoff extends ExponentialBackoff {
+    private static final long MIN_WINDOW_NANOS = BASE_NANOS;
+
+    public SizeScaledBackoff(final int irrevocableAfter) {
+      super(irrevocableAfter);
+    }
+
+    @Override
+    public void onAbort(final int aborts, final long accessed) {
+      int sizeBits = 64 - Long.numberOfLeadingZeros(accessed);
+      long window = sizeBits >= 63 ? 0 : window(aborts) >> sizeBits;
+      backoff(Math.max(window, MIN_WINDOW_NANOS));
+    }
+  }
+}
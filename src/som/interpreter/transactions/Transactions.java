@@ -1,9 +1,17 @@
 package som.interpreter.transactions;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.ControlFlowException;
 
+import som.compiler.MixinDefinition.SlotDefinition;
 import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SObject.SMutableObject;
 
@@ -13,20 +21,45 @@ import som.vmobjects.SObject.SMutableObject;
  *
  * <p>
  * The general idea is that all accesses to objects and arrays are mediated
- * via {@link Change} objects. These keep a copy of the initial state, and a
- * working copy on which the transactions perform their accesses.
- * On commit, we simply compare the initial state with the publicly visible
- * objects, if any change (conflict) is seen the transaction retries. If no
- * conflict was determined, the new state is copied into the publicly visible
- * object.
+ * via {@link Change} objects. These log the slots and array elements the
+ * transaction wrote. Reads see the logged writes, or otherwise read the
+ * publicly visible object while holding its lock. Thus, only the accessed
+ * slots and elements are touched, and large arrays are never copied.
+ *
+ * <p>
+ * Conflicts are detected with versioned ownership records (orecs), which
+ * are striped over the objects by their identity hash. An even orec value
+ * is the version of its stripe, an odd value means that a committing
+ * transaction owns the stripe. A {@link Change} remembers the version it
+ * observed when the object was first accessed by the transaction.
+ *
+ * <p>
+ * On commit, the transaction locks the stripes of the objects it changed,
+ * in ascending order, and validates that none of the stripes it accessed
+ * has a newer version, or is owned by another transaction. If that holds,
+ * the logged writes are applied to the publicly visible objects, and the
+ * versions of the locked stripes are incremented. Otherwise, the
+ * transaction retries. Thus, transactions with disjoint stripes commit in
+ * parallel, and read-only accesses never lock stripes.
+ *
+ * <p>
+ * Reads validate as well, so that a transaction never continues on an
+ * inconsistent state. After reading from an object, the transaction checks
+ * that the object's stripe still has the version it observed first. When it
+ * accesses a new object, and another transaction committed since the last
+ * check, it validates all objects accessed so far. Otherwise, it aborts
+ * with {@link Abort} and retries.
  *
  * <p>
  * Transactions always succeed, this implementation automatically retries.
+ * How it retries is decided by the {@link ContentionManager}, which can
+ * also decide to run a transaction in serial irrevocable mode. Only one
+ * such transaction runs at a time. It owns the stripes it accesses until
+ * it commits, and thus cannot fail.
  *
  * <p>
- * The initial creation of a {@link Change} object accesses the public object
- * while holding its lock. Similarly, on writing back changes, the lock is
- * acquired. Transaction commits are globally sequentialized on a single lock.
+ * Note that the atomicity is weak: writes outside of transactions
+ * do not change the versions, and are not detected as conflicts.
  *
  * <p>
  * Inspired by: Transactional Memory for Smalltalk
@@ -38,101 +71,263 @@ public final class Transactions {
   private IdentityHashMap<SMutableObject, ObjectChange> objects;
   private IdentityHashMap<SMutableArray, ArrayChange>   arrays;
 
-  private static Object globalCommitLock = new Object();
+  /** Set for transactions in serial irrevocable mode. */
+  private boolean                irrevocable;
+  private HashMap<Integer, Long> ownedStripes;
+
+  private static final int  NUM_ORECS   = 1 << 14;
+  private static final int  STRIPE_MASK = NUM_ORECS - 1;
+  private static final long LOCKED      = 1;
+  private static final long IRREVOCABLE = 2;
+  private static final long VERSION_INC = 4;
+
+  private static final AtomicLongArray orecs = new AtomicLongArray(NUM_ORECS);
+
+  /**
+   * Number of commits that changed stripes. It is incremented before the
+   * versions of the stripes change, so a transaction that sees the same
+   * number as at its last validation does not need to validate again.
+   */
+  private static final AtomicLong numCommits = new AtomicLong();
+
+  /** Value of {@link #numCommits} when the accessed objects were last validated. */
+  private long validatedAt;
+
+  /** Result of {@link #lockStripe(int)} for stripes of irrevocable transactions. */
+  private static final long OWNED_BY_IRREVOCABLE = -1;
+
+  /** Only one transaction at a time can run in irrevocable mode. */
+  private static final ReentrantLock serialMode = new ReentrantLock();
 
   private Transactions() {}
 
+  /**
+   * Thrown when a transaction read an inconsistent state, and has to abort
+   * before continuing with it.
+   */
+  public static final class Abort extends ControlFlowException {
+    private static final long serialVersionUID = 7376489206133575436L;
+
+    private static final Abort INSTANCE = new Abort();
+
+    private Abort() {}
+  }
+
+  private static int stripeOf(final Object o) {
+    return System.identityHashCode(o) & STRIPE_MASK;
+  }
+
+  /**
+   * @return the version of the stripe, after waiting for a committing
+   *         transaction to release it
+   */
+  private static long awaitUnlocked(final int stripe) {
+    long version = orecs.get(stripe);
+    while ((version & LOCKED) != 0) {
+      Thread.yield();
+      version = orecs.get(stripe);
+    }
+    return version;
+  }
+
   private abstract static class Change {
-    abstract boolean hasChange();
+    protected final int  stripe;
+    protected final long version;
 
-    abstract boolean hasConflict();
+    Change(final int stripe, final long version) {
+      this.stripe = stripe;
+      this.version = version;
+    }
+
+    abstract boolean hasChange();
 
     abstract void applyChanges();
   }
 
   private static final class ObjectChange extends Change {
-    private final SMutableObject publicObj;
-    private final SMutableObject initialState;
-    private final SMutableObject workingCopy;
+    private final SMutableObject                          publicObj;
+    private final IdentityHashMap<SlotDefinition, Object> writes;
+
+    ObjectChange(final SMutableObject o, final int stripe, final long version) {
+      super(stripe, version);
+      publicObj = o;
+      writes = new IdentityHashMap<>();
+    }
 
-    ObjectChange(final SMutableObject o) {
-      synchronized (o) {
-        publicObj = o;
-        initialState = o.shallowCopy();
-        workingCopy = o.shallowCopy();
+    Object read(final SlotDefinition slot) {
+      Object value = writes.get(slot);
+      if (value != null) {
+        return value;
+      }
+
+      synchronized (publicObj) {
+        return publicObj.readSlot(slot);
       }
     }
 
-    @Override
-    boolean hasChange() {
-      return !workingCopy.txEquals(initialState);
+    void write(final SlotDefinition slot, final Object value) {
+      writes.put(slot, value);
     }
 
     @Override
-    boolean hasConflict() {
-      return !publicObj.txEquals(initialState);
+    boolean hasChange() {
+      return !writes.isEmpty();
     }
 
     @Override
     void applyChanges() {
       synchronized (publicObj) {
-        publicObj.txSet(workingCopy);
+        for (Entry<SlotDefinition, Object> e : writes.entrySet()) {
+          publicObj.writeSlot(e.getKey(), e.getValue());
+        }
       }
     }
   }
 
   private static final class ArrayChange extends Change {
-    private final SMutableArray publicArr;
-    private final SMutableArray initialState;
-    private final SMutableArray workingCopy;
+    private final SMutableArray            publicArr;
+    private final HashMap<Integer, Object> writes;
+
+    ArrayChange(final SMutableArray a, final int stripe, final long version) {
+      super(stripe, version);
+      publicArr = a;
+      writes = new HashMap<>();
+    }
 
-    ArrayChange(final SMutableArray a) {
-      synchronized (a) {
-        publicArr = a;
-        initialState = a.shallowCopy();
-        workingCopy = a.shallowCopy();
+    Object read(final int idx) {
+      Object value = writes.get(idx);
+      if (value != null) {
+        return value;
+      }
+
+      synchronized (publicArr) {
+        return publicArr.txGet(idx);
       }
     }
 
-    @Override
-    boolean hasChange() {
-      return !workingCopy.txEquals(initialState);
+    void write(final int idx, final Object value) {
+      writes.put(idx, value);
     }
 
     @Override
-    boolean hasConflict() {
-      return !publicArr.txEquals(initialState);
+    boolean hasChange() {
+      return !writes.isEmpty();
     }
 
     @Override
     void applyChanges() {
       synchronized (publicArr) {
-        publicArr.txSet(workingCopy);
+        for (Entry<Integer, Object> e : writes.entrySet()) {
+          publicArr.txPut(e.getKey(), e.getValue());
+        }
       }
     }
   }
 
-  private void start() {
+  private void start(final boolean irrevocable) {
     objects = new IdentityHashMap<>();
     arrays = new IdentityHashMap<>();
+    validatedAt = numCommits.get();
+
+    this.irrevocable = irrevocable;
+    if (irrevocable) {
+      serialMode.lock();
+      ownedStripes = new HashMap<>();
+    } else {
+      ownedStripes = null;
+    }
+  }
+
+  /**
+   * An irrevocable transaction owns the stripes it accesses until it
+   * commits, so that no other transaction can commit changes to them.
+   * Others only wait for them when they first access an object, and abort
+   * when they try to lock them for commit, which avoids deadlocks.
+   *
+   * @return the version of the stripe to validate against
+   */
+  private long open(final int stripe) {
+    if (!irrevocable) {
+      return awaitUnlocked(stripe);
+    }
+
+    Long owned = ownedStripes.get(stripe);
+    if (owned != null) {
+      return owned;
+    }
+
+    long version;
+    do {
+      version = awaitUnlocked(stripe);
+    } while (!orecs.compareAndSet(stripe, version, version | LOCKED | IRREVOCABLE));
+    ownedStripes.put(stripe, version);
+    return version;
   }
 
-  private SMutableObject getWorkingCopy(final SMutableObject o) {
+  private ObjectChange getChange(final SMutableObject o) {
     ObjectChange change = objects.get(o);
     if (change == null) {
-      change = new ObjectChange(o);
+      int stripe = stripeOf(o);
+      change = new ObjectChange(o, stripe, open(stripe));
       objects.put(o, change);
+      validateIfCommitted();
     }
-    return change.workingCopy;
+    return change;
   }
 
-  private SMutableArray getWorkingCopy(final SMutableArray a) {
+  private ArrayChange getChange(final SMutableArray a) {
     ArrayChange change = arrays.get(a);
     if (change == null) {
-      change = new ArrayChange(a);
+      int stripe = stripeOf(a);
+      change = new ArrayChange(a, stripe, open(stripe));
       arrays.put(a, change);
+      validateIfCommitted();
+    }
+    return change;
+  }
+
+  /**
+   * Validates the versions of all accessed objects, if another transaction
+   * committed since the last validation. Thus, the objects accessed so far,
+   * including the new one, belong to one consistent state.
+   */
+  private void validateIfCommitted() {
+    if (irrevocable) {
+      return;
+    }
+
+    long commits = numCommits.get();
+    if (commits == validatedAt) {
+      return;
+    }
+
+    for (ObjectChange c : objects.values()) {
+      validate(c);
+    }
+    for (ArrayChange c : arrays.values()) {
+      validate(c);
+    }
+    validatedAt = commits;
+  }
+
+  /**
+   * Aborts the transaction, if the stripe of the object changed since it was
+   * first accessed. A stripe locked by a committing transaction is waited for.
+   */
+  private void validate(final Change c) {
+    if (!irrevocable && awaitUnlocked(c.stripe) != c.version) {
+      throw Abort.INSTANCE;
     }
-    return change.workingCopy;
+  }
+
+  /** Number of objects and arrays accessed by the transaction. */
+  @TruffleBoundary
+  public int getNumberOfAccessed() {
+    return objects.size() + arrays.size();
+  }
+
+  public boolean isIrrevocable() {
+    return irrevocable;
   }
 
   private static final ThreadLocal<Transactions> transactions =
@@ -144,66 +339,216 @@ public final class Transactions {
       };
 
   @TruffleBoundary
-  public static Transactions startTransaction() {
+  public static Transactions startTransaction(final boolean irrevocable) {
     Transactions t = transactions.get();
-    t.start();
+    t.start(irrevocable);
     return t;
   }
 
   /**
-   * @return true on success, otherwise false.
+   * @return true on success, otherwise false. Irrevocable transactions
+   *         always succeed.
    */
   @TruffleBoundary
   public boolean commit() {
-    synchronized (globalCommitLock) {
-      if (hasConflicts()) {
-        return false;
-      }
+    if (irrevocable) {
+      commitIrrevocable();
+      return true;
     }
 
-    applyChanges();
+    Change[] writes = collectChanged();
+    int[] stripes = distinctStripes(writes);
+    long[] lockedVersions = lock(stripes);
+
+    if (lockedVersions == null) {
+      return false;
+    }
+
+    if (!isValid(stripes, lockedVersions)) {
+      release(stripes, lockedVersions, 0);
+      return false;
+    }
+
+    if (stripes.length > 0) {
+      numCommits.incrementAndGet();
+    }
+
+    for (Change c : writes) {
+      c.applyChanges();
+    }
+    release(stripes, lockedVersions, VERSION_INC);
     return true;
   }
 
-  private boolean hasConflicts() {
+  private void commitIrrevocable() {
+    try {
+      for (Change c : collectChanged()) {
+        c.applyChanges();
+      }
+      numCommits.incrementAndGet();
+      for (Entry<Integer, Long> e : ownedStripes.entrySet()) {
+        orecs.set(e.getKey(), e.getValue() + VERSION_INC);
+      }
+    } finally {
+      irrevocable = false;
+      ownedStripes = null;
+      serialMode.unlock();
+    }
+  }
+
+  private Change[] collectChanged() {
+    Change[] changed = new Change[objects.size() + arrays.size()];
+    int i = 0;
     for (ObjectChange c : objects.values()) {
-      if (c.hasConflict()) {
-        return true;
+      if (c.hasChange()) {
+        changed[i] = c;
+        i += 1;
       }
     }
 
     for (ArrayChange c : arrays.values()) {
-      if (c.hasConflict()) {
-        return true;
+      if (c.hasChange()) {
+        changed[i] = c;
+        i += 1;
+      }
+    }
+    return Arrays.copyOf(changed, i);
+  }
+
+  private static int[] distinctStripes(final Change[] changes) {
+    int[] stripes = new int[changes.length];
+    for (int i = 0; i < changes.length; i++) {
+      stripes[i] = changes[i].stripe;
+    }
+    Arrays.sort(stripes);
+
+    int n = 0;
+    for (int i = 0; i < stripes.length; i++) {
+      if (n == 0 || stripes[n - 1] != stripes[i]) {
+        stripes[n] = stripes[i];
+        n += 1;
       }
     }
+    return Arrays.copyOf(stripes, n);
+  }
 
-    return false;
+  /**
+   * Locks the given stripes. Since they are sorted, and lock owners do not
+   * wait for other stripes out of order, waiting here cannot deadlock.
+   * Stripes owned by an irrevocable transaction are not waited for.
+   *
+   * @return the versions of the stripes before locking them, or null if a
+   *         stripe is owned by an irrevocable transaction
+   */
+  private static long[] lock(final int[] stripes) {
+    long[] versions = new long[stripes.length];
+    for (int i = 0; i < stripes.length; i++) {
+      long version = lockStripe(stripes[i]);
+      if (version == OWNED_BY_IRREVOCABLE) {
+        release(stripes, versions, i, 0);
+        return null;
+      }
+      versions[i] = version;
+    }
+    return versions;
   }
 
-  private void applyChanges() {
+  private static long lockStripe(final int stripe) {
+    while (true) {
+      long version = orecs.get(stripe);
+      if ((version & IRREVOCABLE) != 0) {
+        return OWNED_BY_IRREVOCABLE;
+      }
+      if ((version & LOCKED) == 0 &&
+          orecs.compareAndSet(stripe, version, version | LOCKED)) {
+        return version;
+      }
+      Thread.yield();
+    }
+  }
+
+  private static void release(final int[] stripes, final long[] versions,
+      final long increment) {
+    release(stripes, versions, stripes.length, increment);
+  }
+
+  private static void release(final int[] stripes, final long[] versions,
+      final int numLocked, final long increment) {
+    for (int i = 0; i < numLocked; i++) {
+      orecs.set(stripes[i], versions[i] + increment);
+    }
+  }
+
+  /**
+   * @return true, if no stripe accessed by the transaction changed since it
+   *         was first read, and none is owned by another transaction
+   */
+  private boolean isValid(final int[] locked, final long[] lockedVersions) {
     for (ObjectChange c : objects.values()) {
-      if (c.hasChange()) {
-        c.applyChanges();
+      if (!isValid(c, locked, lockedVersions)) {
+        return false;
       }
     }
 
     for (ArrayChange c : arrays.values()) {
-      if (c.hasChange()) {
-        c.applyChanges();
+      if (!isValid(c, locked, lockedVersions)) {
+        return false;
       }
     }
+
+    return true;
+  }
+
+  private static boolean isValid(final Change c, final int[] locked,
+      final long[] lockedVersions) {
+    int idx = Arrays.binarySearch(locked, c.stripe);
+    long current = idx >= 0 ? lockedVersions[idx] : orecs.get(c.stripe);
+    return current == c.version;
+  }
+
+  @TruffleBoundary
+  public static Object readSlot(final SMutableObject rcvr, final SlotDefinition slot) {
+    Transactions t = transactions.get();
+    ObjectChange change = t.getChange(rcvr);
+    Object value = change.read(slot);
+    t.validate(change);
+    return value;
+  }
+
+  @TruffleBoundary
+  public static void writeSlot(final SMutableObject rcvr, final SlotDefinition slot,
+      final Object value) {
+    Transactions t = transactions.get();
+    t.getChange(rcvr).write(slot, value);
   }
 
+  /**
+   * @return the element at the 1-based index, or null if the index is out
+   *         of bounds
+   */
   @TruffleBoundary
-  public static SMutableObject workingCopy(final SMutableObject rcvr) {
+  public static Object readElement(final SMutableArray rcvr, final long idx) {
+    if (idx < 1 || idx > rcvr.txLength()) {
+      return null;
+    }
     Transactions t = transactions.get();
-    return t.getWorkingCopy(rcvr);
+    ArrayChange change = t.getChange(rcvr);
+    Object value = change.read((int) idx - 1);
+    t.validate(change);
+    return value;
   }
 
+  /**
+   * @return false if the 1-based index is out of bounds, otherwise true
+   */
   @TruffleBoundary
-  public static SMutableArray workingCopy(final SMutableArray rcvr) {
+  public static boolean writeElement(final SMutableArray rcvr, final long idx,
+      final Object value) {
+    if (idx < 1 || idx > rcvr.txLength()) {
+      return false;
+    }
     Transactions t = transactions.get();
-    return t.getWorkingCopy(rcvr);
+    t.getChange(rcvr).write((int) idx - 1, value);
+    return true;
   }
 }
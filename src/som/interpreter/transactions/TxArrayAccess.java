@@ -22,8 +22,12 @@ public abstract class TxArrayAccess {
     @Specialization
     public final Object doSArray(final VirtualFrame frame,
         final SMutableArray rcvr, final long idx) {
-      SMutableArray workingCopy = Transactions.workingCopy(rcvr);
-      return arrayOp.executeEvaluated(frame, workingCopy, idx);
+      Object value = Transactions.readElement(rcvr, idx);
+      if (value == null) {
+        // out of bounds, let the array primitive signal the error
+        return arrayOp.executeEvaluated(frame, rcvr, idx);
+      }
+      return value;
     }
 
     public final Object doSArray(final VirtualFrame frame,
@@ -42,8 +46,11 @@ public abstract class TxArrayAccess {
     @Specialization
     public final Object doSArray(final VirtualFrame frame,
         final SMutableArray rcvr, final long idx, final Object val) {
-      SMutableArray workingCopy = Transactions.workingCopy(rcvr);
-      return arrayOp.executeEvaluated(frame, workingCopy, idx, val);
+      if (!Transactions.writeElement(rcvr, idx, val)) {
+        // out of bounds, let the array primitive signal the error
+        return arrayOp.executeEvaluated(frame, rcvr, idx, val);
+      }
+      return val;
     }
 
     @Specialization
@@ -0,0 +1,119 @@
+package som.interpreter.transactions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.source.SourceSection;
+
+import som.Output;
+import som.vm.VmSettings;
+
+
+/**
+ * Counts commits, aborts, and retries of the transactions of one
+ * {@code atomic:} block. Enabled with -Dsom.txStats=true, and reported at
+ * VM exit. The statistics are kept per source section, so that copies of
+ * an {@code atomic:} node, e.g. from splitting, count together.
+ */
+public final class TxStatistics {
+  private static final int NUM_REPORTED_BLOCKS = 20;
+
+  private static final ConcurrentHashMap<SourceSection, TxStatistics> allStats =
+      new ConcurrentHashMap<>();
+
+  /** For {@code atomic:} nodes without source section. */
+  private static final TxStatistics withoutSource = new TxStatistics(null);
+
+  private final SourceSection source;
+
+  private final LongAdder       commits;
+  private final LongAdder       aborts;
+  private final LongAdder       retried;
+  private final LongAdder       irrevocable;
+  private final LongAccumulator maxAborts;
+
+  @TruffleBoundary
+  public static TxStatistics forSource(final SourceSection source) {
+    if (source == null) {
+      return withoutSource;
+    }
+    return allStats.computeIfAbsent(source, TxStatistics::new);
+  }
+
+  private TxStatistics(final SourceSection source) {
+    this.source = source;
+    this.commits = new LongAdder();
+    this.aborts = new LongAdder();
+    this.retried = new LongAdder();
+    this.irrevocable = new LongAdder();
+    this.maxAborts = new LongAccumulator(Math::max, 0);
+  }
+
+  @TruffleBoundary
+  public void aborted() {
+    aborts.increment();
+  }
+
+  /**
+   * @param numAborts of the transaction before it committed
+   */
+  @TruffleBoundary
+  public void committed(final int numAborts, final boolean wasIrrevocable) {
+    commits.increment();
+    if (numAborts > 0) {
+      retried.increment();
+      maxAborts.accumulate(numAborts);
+    }
+    if (wasIrrevocable) {
+      irrevocable.increment();
+    }
+  }
+
+  /**
+   * Reports the totals, and the {@code atomic:} blocks with the most aborts.
+   */
+  public static void reportStats() {
+    if (!VmSettings.TX_STATS) {
+      return;
+    }
+
+    List<TxStatistics> stats = new ArrayList<>(allStats.values());
+    stats.add(withoutSource);
+    long commits = 0;
+    long aborts = 0;
+    long retried = 0;
+    long irrevocable = 0;
+    for (TxStatistics s : stats) {
+      commits += s.commits.sum();
+      aborts += s.aborts.sum();
+      retried += s.retried.sum();
+      irrevocable += s.irrevocable.sum();
+    }
+
+    Output.println("[Transactions] commits: " + commits + "\taborts: " + aborts
+        + "\tretried: " + retried + "\tirrevocable: " + irrevocable);
+
+    // blocks that never committed are reported, too, they may only abort
+    stats.removeIf(s -> s.commits.sum() == 0 && s.aborts.sum() == 0);
+    stats.sort((a, b) -> Long.compare(b.aborts.sum(), a.aborts.sum()));
+    for (int i = 0; i < Math.min(NUM_REPORTED_BLOCKS, stats.size()); i++) {
+      TxStatistics s = stats.get(i);
+      Output.println("  " + s.getLocation()
+          + "\tcommits: " + s.commits.sum() + "\taborts: " + s.aborts.sum()
+          + "\tretried: " + s.retried.sum() + "\tmax aborts: " + s.maxAborts.get()
+          + "\tirrevocable: " + s.irrevocable.sum());
+    }
+  }
+
+  private String getLocation() {
+    if (source == null) {
+      return "atomic:";
+    }
+    return source.getSource().getName() + ":" + source.getStartLine() + ":"
+        + source.getStartColumn();
+  }
+}
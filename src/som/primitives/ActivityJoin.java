@@ -38,7 +38,12 @@ public class ActivityJoin {
 
     @TruffleBoundary
     private static Object doJoin(final SomTaskOrThread task) {
-      return task.join();
+      try {
+        return task.joinBlocking();
+      } catch (InterruptedException e) {
+        /* doesn't tell us a lot at the moment, so it is ignored */
+        return task.join();
+      }
     }
 
     @Specialization
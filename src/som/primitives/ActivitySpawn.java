@@ -14,6 +14,8 @@ import com.oracle.truffle.api.source.SourceSection;
 
 import bd.primitives.Primitive;
 import som.VM;
+import som.interpreter.actors.Actor;
+import som.interpreter.actors.EventualMessage;
 import som.interpreter.nodes.nary.BinaryComplexOperation.BinarySystemOperation;
 import som.interpreter.nodes.nary.TernaryExpressionNode.TernarySystemOperation;
 import som.primitives.ObjectPrims.IsValue;
@@ -22,6 +24,7 @@ import som.primitives.arrays.ToArgumentsArrayNode;
 import som.primitives.processes.ChannelPrimitives;
 import som.primitives.processes.ChannelPrimitives.Process;
 import som.primitives.processes.ChannelPrimitives.TracingProcess;
+import som.primitives.threading.TaskThreads;
 import som.primitives.threading.TaskThreads.SomForkJoinTask;
 import som.primitives.threading.TaskThreads.SomThreadTask;
 import som.primitives.threading.TaskThreads.TracedForkJoinTask;
@@ -48,8 +51,21 @@ import tools.debugger.session.Breakpoints;
 
 public abstract class ActivitySpawn {
 
+  /**
+   * Tasks and threads share memory with the activity that spawns them, so the
+   * objects of a spawning actor are not local to it anymore.
+   */
+  private static void shareMemoryOfCurrentActor() {
+    Actor current = EventualMessage.getActorExecutingOnCurrentThread();
+    if (current != null) {
+      current.shareMemory();
+    }
+  }
+
   private static SomForkJoinTask createTask(final Object[] argArray,
       final boolean stopOnRoot, final SBlock block, final SourceSection section) {
+    shareMemoryOfCurrentActor();
+
     SomForkJoinTask task;
     if (VmSettings.ACTOR_TRACING) {
       task = new TracedForkJoinTask(argArray, stopOnRoot);
@@ -63,6 +79,8 @@ public abstract class ActivitySpawn {
 
   private static SomThreadTask createThread(final Object[] argArray,
       final boolean stopOnRoot, final SBlock block, final SourceSection section) {
+    shareMemoryOfCurrentActor();
+
     SomThreadTask thread;
     if (VmSettings.ACTOR_TRACING) {
       thread = new TracedThreadTask(argArray, stopOnRoot);
@@ -119,7 +137,11 @@ public abstract class ActivitySpawn {
     public final SomForkJoinTask spawnTask(final SClass clazz, final SBlock block) {
       SomForkJoinTask task = createTask(new Object[] {block},
           onExec.executeShouldHalt(), block, sourceSection);
-      forkJoinPool.execute(task);
+      if (TaskThreads.shouldRunInline(forkJoinPool)) {
+        task.runInline();
+      } else {
+        task.executeOn(forkJoinPool);
+      }
       return task;
     }
 
@@ -128,7 +150,7 @@ public abstract class ActivitySpawn {
     public final SomThreadTask spawnThread(final SClass clazz, final SBlock block) {
       SomThreadTask thread = createThread(new Object[] {block},
           onExec.executeShouldHalt(), block, sourceSection);
-      threadPool.execute(thread);
+      thread.executeOn(threadPool);
       return thread;
     }
 
@@ -195,7 +217,11 @@ public abstract class ActivitySpawn {
         final SArray somArgArr, final Object[] argArr) {
       SomForkJoinTask task = createTask(argArr,
           onExec.executeShouldHalt(), block, sourceSection);
-      forkJoinPool.execute(task);
+      if (TaskThreads.shouldRunInline(forkJoinPool)) {
+        task.runInline();
+      } else {
+        task.executeOn(forkJoinPool);
+      }
       return task;
     }
 
@@ -205,7 +231,7 @@ public abstract class ActivitySpawn {
         final SArray somArgArr, final Object[] argArr) {
       SomThreadTask thread = createThread(argArr,
           onExec.executeShouldHalt(), block, sourceSection);
-      threadPool.execute(thread);
+      thread.executeOn(threadPool);
       return thread;
     }
 
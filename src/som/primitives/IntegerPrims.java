@@ -14,6 +14,7 @@ import som.interpreter.nodes.nary.UnaryExpressionNode;
 import som.primitives.arithmetic.ArithmeticPrim;
 import som.vm.constants.Classes;
 import som.vmobjects.SArray.SMutableArray;
+import som.vmobjects.SInt128;
 import som.vmobjects.SSymbol;
 import tools.dym.Tags.ComplexPrimitiveOperation;
 import tools.dym.Tags.OpArithmetic;
@@ -101,6 +102,12 @@ public abstract class IntegerPrims {
       return receiver << right;
     }
 
+    @Specialization(guards = "right < 64")
+    public final Number doLongToInt128(final long receiver, final long right) {
+      assert right >= 0; // currently not defined for negative values of right
+      return SInt128.shiftLeft(receiver, right);
+    }
+
     @Specialization
     @TruffleBoundary
     public final Number doLongWithOverflow(final long receiver, final long right) {
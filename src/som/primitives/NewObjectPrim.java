@@ -5,6 +5,7 @@ import com.oracle.truffle.api.dsl.Cached;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import som.compiler.MixinBuilder.MixinDefinitionId;
+import som.interpreter.actors.EventualMessage;
 import som.interpreter.nodes.ISpecialSend;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
 import som.interpreter.objectstorage.ClassFactory;
@@ -61,7 +62,7 @@ public abstract class NewObjectPrim extends UnaryExpressionNode implements ISpec
   public final SAbstractObject doClassWithOnlyImmutableFields(final SClass receiver,
       @Cached("receiver.getInstanceFactory()") final ClassFactory factory,
       @Cached("receiver.getInstanceFactory().getInstanceLayout()") final ObjectLayout layout) {
-    return new SImmutableObject(receiver, factory, layout);
+    return SImmutableObject.create(receiver, factory, layout);
   }
 
   @Specialization(guards = {
@@ -74,7 +75,8 @@ public abstract class NewObjectPrim extends UnaryExpressionNode implements ISpec
       final SClass receiver,
       @Cached("receiver.getInstanceFactory()") final ClassFactory factory,
       @Cached("factory.getInstanceLayout()") final ObjectLayout layout) {
-    return new SMutableObject(receiver, factory, layout);
+    return SMutableObject.create(receiver, factory, layout,
+        EventualMessage.getActorExecutingOnCurrentThread());
   }
 
   @Specialization(guards = {
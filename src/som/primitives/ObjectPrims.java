@@ -26,6 +26,8 @@ import som.vmobjects.SArray.SImmutableArray;
 import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SBlock;
 import som.vmobjects.SClass;
+import som.vmobjects.SConcatString;
+import som.vmobjects.SInt128;
 import som.vmobjects.SObject.SImmutableObject;
 import som.vmobjects.SObject.SMutableObject;
 import som.vmobjects.SObjectWithClass.SObjectWithoutFields;
@@ -174,6 +176,16 @@ public final class ObjectPrims {
       return true;
     }
 
+    @Specialization
+    public final boolean isValue(final SConcatString rcvr) {
+      return true;
+    }
+
+    @Specialization
+    public final boolean isValue(final SInt128 rcvr) {
+      return true;
+    }
+
     @Specialization
     public final boolean isValue(final String rcvr) {
       return true;
@@ -246,8 +258,10 @@ public final class ObjectPrims {
       if (obj instanceof Boolean ||
           obj instanceof Long ||
           obj instanceof BigInteger ||
+          obj instanceof SInt128 ||
           obj instanceof Double ||
-          obj instanceof String) {
+          obj instanceof String ||
+          obj instanceof SConcatString) {
         return true;
       }
 
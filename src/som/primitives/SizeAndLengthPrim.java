@@ -7,6 +7,7 @@ import com.oracle.truffle.api.profiles.ValueProfile;
 import bd.primitives.Primitive;
 import som.interpreter.nodes.nary.UnaryBasicOperation;
 import som.vmobjects.SArray;
+import som.vmobjects.SConcatString;
 import som.vmobjects.SSymbol;
 import tools.dym.Tags.OpLength;
 
@@ -62,6 +63,11 @@ public abstract class SizeAndLengthPrim extends UnaryBasicOperation {
 
   public abstract long executeEvaluated(SArray receiver);
 
+  @Specialization
+  public final long doConcatString(final SConcatString receiver) {
+    return receiver.length();
+  }
+
   @Specialization
   public final long doString(final String receiver) {
     return receiver.length();
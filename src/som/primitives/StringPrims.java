@@ -1,6 +1,6 @@
 package som.primitives;
 
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.dsl.Fallback;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
@@ -17,6 +17,7 @@ import som.vm.Symbols;
 import som.vm.constants.KernelObj;
 import som.vmobjects.SAbstractObject;
 import som.vmobjects.SArray;
+import som.vmobjects.SConcatString;
 import som.vmobjects.SSymbol;
 import tools.dym.Tags.ComplexPrimitiveOperation;
 import tools.dym.Tags.StringAccess;
@@ -24,6 +25,25 @@ import tools.dym.Tags.StringAccess;
 
 public class StringPrims {
 
+  /** The one-character strings of the Latin-1 range, to read them without allocation. */
+  @CompilationFinal(dimensions = 1) private static final String[] singleCharStrings =
+      createSingleCharStrings();
+
+  private static String[] createSingleCharStrings() {
+    String[] strings = new String[256];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = String.valueOf((char) i);
+    }
+    return strings;
+  }
+
+  public static String charToString(final char c) {
+    if (c < singleCharStrings.length) {
+      return singleCharStrings[c];
+    }
+    return String.valueOf(c);
+  }
+
   @GenerateNodeFactory
   @Primitive(primitive = "string:concat:")
   public abstract static class ConcatPrim extends BinaryComplexOperation {
@@ -37,27 +57,35 @@ public class StringPrims {
     }
 
     @Specialization
-    @TruffleBoundary
-    public final String doString(final String receiver, final String argument) {
-      return receiver + argument;
+    public final SConcatString doConcatString(final SConcatString receiver,
+        final String argument) {
+      return receiver.append(argument);
     }
 
     @Specialization
-    @TruffleBoundary
-    public final String doString(final String receiver, final SSymbol argument) {
-      return receiver + argument.getString();
+    public final SConcatString doConcatString(final SConcatString receiver,
+        final SSymbol argument) {
+      return receiver.append(argument.getString());
     }
 
     @Specialization
-    @TruffleBoundary
-    public final String doSSymbol(final SSymbol receiver, final String argument) {
-      return receiver.getString() + argument;
+    public final Object doString(final String receiver, final String argument) {
+      return SConcatString.concat(receiver, argument);
     }
 
     @Specialization
-    @TruffleBoundary
-    public final String doSSymbol(final SSymbol receiver, final SSymbol argument) {
-      return receiver.getString() + argument.getString();
+    public final Object doString(final String receiver, final SSymbol argument) {
+      return SConcatString.concat(receiver, argument.getString());
+    }
+
+    @Specialization
+    public final Object doSSymbol(final SSymbol receiver, final String argument) {
+      return SConcatString.concat(receiver.getString(), argument);
+    }
+
+    @Specialization
+    public final Object doSSymbol(final SSymbol receiver, final SSymbol argument) {
+      return SConcatString.concat(receiver.getString(), argument.getString());
     }
   }
 
@@ -122,6 +150,9 @@ public class StringPrims {
         return "Error - index out of bounds";
       }
 
+      if (subLen == 1) {
+        return charToString(receiver.charAt(beginIndex));
+      }
       return receiver.substring(beginIndex, end);
     }
 
@@ -155,7 +186,7 @@ public class StringPrims {
         invalidArgs.enter();
         return "Error - index out of bounds";
       }
-      return String.valueOf(receiver.charAt(i));
+      return charToString(receiver.charAt(i));
     }
 
     @Specialization
@@ -175,8 +206,8 @@ public class StringPrims {
       Object[] storage = chars.getObjectStorage(SArray.ObjectStorageType);
       StringBuilder sb = new StringBuilder(storage.length);
       for (Object o : storage) {
-        if (o instanceof String) {
-          sb.append((String) o);
+        if (o instanceof String || o instanceof SConcatString) {
+          sb.append(o.toString());
         } else if (o instanceof SSymbol) {
           sb.append(((SSymbol) o).getString());
         } else {
@@ -206,7 +237,7 @@ public class StringPrims {
 
     @Specialization(guards = "isStrictlyBmpCodePoint(val)")
     public final String doString(final long val) {
-      return new String(new char[] {(char) val});
+      return charToString((char) val);
     }
 
     protected static final boolean isValidCodePointButNotBmp(final long val) {
@@ -243,13 +274,46 @@ public class StringPrims {
   @GenerateNodeFactory
   @Primitive(primitive = "string:codepointAt:")
   public abstract static class CodepointAtPrim extends BinaryExpressionNode {
+    private final BranchProfile invalidArgs = BranchProfile.create();
 
     @Specialization
     public final long doString(final String str, final long idx) {
       VM.thisMethodNeedsToBeOptimized(
           "CodepointAtPrim: we probably want to specialize here to ideally only have a char read and check");
       int i = (int) idx - 1; // go from 1-based to 0-based
+      if (i < 0 || i >= str.length()) {
+        invalidArgs.enter();
+        return indexOutOfBounds(str, idx);
+      }
       return str.codePointAt(i);
     }
   }
+
+  /** Reads a UTF-16 code unit as an integer, without allocating a string for it. */
+  @GenerateNodeFactory
+  @Primitive(primitive = "string:codeUnitAt:")
+  public abstract static class CodeUnitAtPrim extends BinaryExpressionNode {
+    private final BranchProfile invalidArgs = BranchProfile.create();
+
+    @Specialization
+    public final long doString(final String str, final long idx) {
+      int i = (int) idx - 1;
+      if (i < 0 || i >= str.length()) {
+        invalidArgs.enter();
+        return indexOutOfBounds(str, idx);
+      }
+      return str.charAt(i);
+    }
+
+    @Specialization
+    public final long doSSymbol(final SSymbol sym, final long idx) {
+      return doString(sym.getString(), idx);
+    }
+  }
+
+  private static long indexOutOfBounds(final String str, final long idx) {
+    KernelObj.signalException("signalArgumentError:",
+        "Index " + idx + " is out of bounds for a string of length " + str.length());
+    return 0;
+  }
 }
@@ -3,6 +3,7 @@ package som.primitives;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 
 import com.oracle.truffle.api.CompilerDirectives;
@@ -247,6 +248,29 @@ public final class SystemPrims {
     }
   }
 
+  @GenerateNodeFactory
+  @Primitive(primitive = "systemAllocatedBytes:")
+  public abstract static class AllocatedBytesPrim extends UnaryExpressionNode {
+    @Specialization
+    public final long doSObject(final Object receiver) {
+      return getAllocatedBytes();
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread,
+     *         or -1 if the JVM does not support measuring it
+     */
+    @TruffleBoundary
+    private static long getAllocatedBytes() {
+      java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+      if (bean instanceof com.sun.management.ThreadMXBean) {
+        return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+            Thread.currentThread().getId());
+      }
+      return -1;
+    }
+  }
+
   @GenerateNodeFactory
   @Primitive(primitive = "systemTime:")
   public abstract static class TimePrim extends UnaryBasicOperation {
@@ -2,7 +2,6 @@ package som.primitives;
 
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.ForkJoinPool;
 
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
@@ -11,6 +10,7 @@ import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
 import som.VM;
+import som.interpreter.actors.ActorScheduler;
 import som.interpreter.actors.ResolvePromiseNode;
 import som.interpreter.actors.SPromise.Resolution;
 import som.interpreter.actors.SPromise.SResolver;
@@ -23,7 +23,7 @@ import som.interpreter.nodes.nary.BinaryComplexOperation.BinarySystemOperation;
 @Primitive(primitive = "actorResolveProm:after:")
 public abstract class TimerPrim extends BinarySystemOperation {
   @CompilationFinal private static Timer timer;
-  @CompilationFinal private ForkJoinPool actorPool;
+  @CompilationFinal private ActorScheduler actorPool;
 
   @Child protected WrapReferenceNode wrapper = WrapReferenceNodeGen.create();
 
@@ -0,0 +1,124 @@
+package som.primitives.actors;
+
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.RootCallTarget;
+import com.oracle.truffle.api.dsl.Cached;
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.profiles.ValueProfile;
+
+import bd.primitives.Primitive;
+import som.VM;
+import som.interpreter.actors.Actor;
+import som.interpreter.actors.ActorScheduler;
+import som.interpreter.actors.EventualMessage;
+import som.interpreter.actors.EventualMessage.DirectMessage;
+import som.interpreter.actors.EventualSendNode;
+import som.interpreter.actors.SFarReference;
+import som.interpreter.actors.SPromise;
+import som.interpreter.actors.SPromise.SResolver;
+import som.interpreter.actors.WrapReferenceNode;
+import som.interpreter.actors.WrapReferenceNodeGen;
+import som.interpreter.nodes.nary.TernaryExpressionNode.TernarySystemOperation;
+import som.primitives.arrays.ToArgumentsArrayNode;
+import som.primitives.arrays.ToArgumentsArrayNodeFactory;
+import som.vm.VmSettings;
+import som.vm.constants.Classes;
+import som.vm.constants.KernelObj;
+import som.vmobjects.SArray;
+import som.vmobjects.SArray.SMutableArray;
+import som.vmobjects.SSymbol;
+import tools.concurrency.ActorExecutionTrace;
+import tools.debugger.entities.SendOp;
+
+
+/**
+ * Sends the same selector with a batch of argument lists to a far reference.
+ * All messages are enqueued with {@link Actor#sendAll}, i.e., with a single
+ * mailbox operation, and in the order of the argument lists.
+ */
+@GenerateNodeFactory
+@Primitive(primitive = "actorsSend:selector:withAll:")
+public abstract class BatchSendPrim extends TernarySystemOperation {
+  private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+  @Child protected ToArgumentsArrayNode toArgs =
+      ToArgumentsArrayNodeFactory.create(null, null);
+  @Child protected WrapReferenceNode    wrapper = WrapReferenceNodeGen.create();
+
+  @CompilationFinal private ActorScheduler actorPool;
+
+  @Override
+  public final BatchSendPrim initialize(final VM vm) {
+    super.initialize(vm);
+    this.actorPool = vm.getActorPool();
+    return this;
+  }
+
+  @TruffleBoundary
+  protected final RootCallTarget createOnReceive(final SSymbol selector) {
+    return EventualSendNode.createOnReceiveCallTarget(selector, sourceSection,
+        vm.getLanguage());
+  }
+
+  @Specialization(guards = {"selector == cachedSelector", "argumentLists.isObjectType()"},
+      limit = "3")
+  public final SMutableArray doCached(final SFarReference rcvr, final SSymbol selector,
+      final SArray argumentLists,
+      @Cached("selector") final SSymbol cachedSelector,
+      @Cached("createOnReceive(selector)") final RootCallTarget onReceive) {
+    return sendAll(rcvr, selector, argumentLists.getObjectStorage(storageType), onReceive);
+  }
+
+  @Specialization(guards = "argumentLists.isObjectType()", replaces = "doCached")
+  public final SMutableArray doUncached(final SFarReference rcvr, final SSymbol selector,
+      final SArray argumentLists) {
+    return sendAll(rcvr, selector, argumentLists.getObjectStorage(storageType),
+        createOnReceive(selector));
+  }
+
+  @Specialization(guards = "argumentLists.isEmptyType()")
+  public final SMutableArray doEmpty(final SFarReference rcvr, final SSymbol selector,
+      final SArray argumentLists) {
+    return new SMutableArray(argumentLists.getEmptyStorage(storageType), Classes.arrayClass);
+  }
+
+  private SMutableArray sendAll(final SFarReference rcvr, final SSymbol selector,
+      final Object[] argumentLists, final RootCallTarget onReceive) {
+    Actor owner = EventualMessage.getActorCurrentMessageIsExecutionOn();
+    Actor target = rcvr.getActor();
+    int numArgs = selector.getNumberOfSignatureArguments();
+
+    EventualMessage[] msgs = new EventualMessage[argumentLists.length];
+    Object[] promises = new Object[argumentLists.length];
+
+    for (int i = 0; i < argumentLists.length; i++) {
+      Object[] args = toArgs.executedEvaluated(argumentLists[i], rcvr.getValue());
+      if (args.length != numArgs) {
+        KernelObj.signalException("signalArgumentError:",
+            "Wrong number of arguments for " + selector.getString());
+      }
+
+      for (int j = 1; j < args.length; j++) {
+        args[j] = wrapper.execute(args[j], target, owner);
+      }
+
+      SPromise promise = SPromise.createPromise(owner, false, false, sourceSection);
+      SResolver resolver = SPromise.createResolver(promise);
+
+      DirectMessage msg = new DirectMessage(target, selector, args, owner, resolver,
+          onReceive, false, false);
+      if (VmSettings.ACTOR_TRACING) {
+        ActorExecutionTrace.sendOperation(SendOp.ACTOR_MSG, msg.getMessageId(),
+            target.getId());
+      }
+
+      msgs[i] = msg;
+      promises[i] = promise;
+    }
+
+    target.sendAll(msgs, actorPool);
+    return new SMutableArray(promises, Classes.arrayClass);
+  }
+}
@@ -0,0 +1,52 @@
+package som.primitives.actors;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import bd.primitives.Primitive;
+import som.interpreter.actors.Actor;
+import som.interpreter.actors.Actor.MailboxOverflow;
+import som.interpreter.actors.SFarReference;
+import som.interpreter.nodes.nary.TernaryExpressionNode;
+import som.interpreter.nodes.nary.UnaryExpressionNode;
+import som.vm.constants.KernelObj;
+import som.vmobjects.SSymbol;
+
+
+public final class MailboxPrims {
+
+  @GenerateNodeFactory
+  @Primitive(primitive = "actorsMailboxDepth:")
+  public abstract static class MailboxDepthPrim extends UnaryExpressionNode {
+    @Specialization
+    public final long getDepth(final SFarReference ref) {
+      return ref.getActor().getMailboxDepth();
+    }
+  }
+
+  /**
+   * Bounds the mailbox of the actor of a far reference. It is meant to be
+   * used directly after creating the actor, before messages are sent to it.
+   */
+  @GenerateNodeFactory
+  @Primitive(primitive = "actorsSetMailbox:capacity:overflow:")
+  public abstract static class SetMailboxBoundPrim extends TernaryExpressionNode {
+    @Specialization
+    public final SFarReference setBound(final SFarReference ref, final long capacity,
+        final SSymbol policy) {
+      MailboxOverflow overflow = MailboxOverflow.fromName(policy.getString());
+      if (overflow == null) {
+        KernelObj.signalException("signalArgumentError:",
+            "Unknown mailbox overflow policy: " + policy.getString());
+      }
+      if (capacity < 0 || capacity > Integer.MAX_VALUE) {
+        KernelObj.signalException("signalArgumentError:",
+            "Mailbox capacity out of range: " + capacity);
+      }
+
+      Actor actor = ref.getActor();
+      actor.setMailboxBound((int) capacity, overflow);
+      return ref;
+    }
+  }
+}
@@ -324,10 +324,9 @@ public final class PromisePrims {
             rcvr.getPromiseId());
       }
 
-      synchronized (rcvr) {
-        registerWhenResolved.register(rcvr, onResolved, current);
-        registerOnError.register(rcvr, onError, current);
-      }
+      // only one of the two is going to be scheduled
+      registerWhenResolved.register(rcvr, onResolved, current);
+      registerOnError.register(rcvr, onError, current);
       return promise;
     }
 
@@ -8,6 +8,8 @@ import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
 import som.vmobjects.SClass;
+import som.vmobjects.SConcatString;
+import som.vmobjects.SInt128;
 import som.vmobjects.SSymbol;
 
 
@@ -22,9 +24,23 @@ public abstract class AdditionPrim extends ArithmeticPrim {
   }
 
   @Specialization
-  @TruffleBoundary
-  public final BigInteger doLongWithOverflow(final long left, final long argument) {
-    return BigInteger.valueOf(left).add(BigInteger.valueOf(argument));
+  public final Number doLongWithOverflow(final long left, final long argument) {
+    return SInt128.add(left, argument);
+  }
+
+  @Specialization
+  public final Number doInt128(final SInt128 left, final long right) {
+    return SInt128.add(left, right);
+  }
+
+  @Specialization
+  public final Number doLong(final long left, final SInt128 right) {
+    return SInt128.add(right, left);
+  }
+
+  @Specialization
+  public final Number doInt128(final SInt128 left, final SInt128 right) {
+    return SInt128.add(left, right);
   }
 
   @Specialization
@@ -40,21 +56,39 @@ public abstract class AdditionPrim extends ArithmeticPrim {
   }
 
   @Specialization
-  @TruffleBoundary
-  public final String doString(final String left, final String right) {
-    return left + right;
+  public final SConcatString doConcatString(final SConcatString left, final String right) {
+    return left.append(right);
   }
 
   @Specialization
   @TruffleBoundary
-  public final String doSSymbol(final SSymbol left, final SSymbol right) {
-    return left.getString() + right.getString();
+  public final SConcatString doConcatString(final SConcatString left, final long right) {
+    return left.append(String.valueOf(right));
   }
 
   @Specialization
-  @TruffleBoundary
-  public final String doSSymbol(final SSymbol left, final String right) {
-    return left.getString() + right;
+  public final SConcatString doConcatString(final SConcatString left, final SClass right) {
+    return left.append(right.getName().getString());
+  }
+
+  @Specialization
+  public final SConcatString doConcatString(final SConcatString left, final SSymbol right) {
+    return left.append(right.getString());
+  }
+
+  @Specialization
+  public final Object doString(final String left, final String right) {
+    return SConcatString.concat(left, right);
+  }
+
+  @Specialization
+  public final Object doSSymbol(final SSymbol left, final SSymbol right) {
+    return SConcatString.concat(left.getString(), right.getString());
+  }
+
+  @Specialization
+  public final Object doSSymbol(final SSymbol left, final String right) {
+    return SConcatString.concat(left.getString(), right);
   }
 
   @Specialization
@@ -81,19 +115,17 @@ public abstract class AdditionPrim extends ArithmeticPrim {
 
   @Specialization
   @TruffleBoundary
-  public final String doString(final String left, final long right) {
-    return left + right;
+  public final Object doString(final String left, final long right) {
+    return SConcatString.concat(left, String.valueOf(right));
   }
 
   @Specialization
-  @TruffleBoundary
-  public final String doString(final String left, final SClass right) {
-    return left + right.getName().getString();
+  public final Object doString(final String left, final SClass right) {
+    return SConcatString.concat(left, right.getName().getString());
   }
 
   @Specialization
-  @TruffleBoundary
-  public final String doString(final String left, final SSymbol right) {
-    return left + right.getString();
+  public final Object doString(final String left, final SSymbol right) {
+    return SConcatString.concat(left, right.getString());
   }
 }
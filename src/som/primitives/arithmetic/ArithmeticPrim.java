@@ -5,6 +5,7 @@ import java.math.BigInteger;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import som.interpreter.nodes.nary.BinaryBasicOperation;
+import som.vmobjects.SInt128;
 import tools.dym.Tags.OpArithmetic;
 
 
@@ -20,10 +21,6 @@ public abstract class ArithmeticPrim extends BinaryBasicOperation {
 
   @TruffleBoundary
   protected static final Number reduceToLongIfPossible(final BigInteger result) {
-    if (result.bitLength() > Long.SIZE - 1) {
-      return result;
-    } else {
-      return result.longValue();
-    }
+    return SInt128.reduce(result);
   }
 }
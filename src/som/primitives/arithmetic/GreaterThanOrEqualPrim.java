@@ -8,6 +8,7 @@ import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
 import som.primitives.ComparisonPrim;
+import som.vmobjects.SInt128;
 
 
 @GenerateNodeFactory
@@ -18,6 +19,21 @@ public abstract class GreaterThanOrEqualPrim extends ComparisonPrim {
     return left >= right;
   }
 
+  @Specialization
+  public final boolean doInt128(final SInt128 left, final long right) {
+    return SInt128.compare(left, right) >= 0;
+  }
+
+  @Specialization
+  public final boolean doLong(final long left, final SInt128 right) {
+    return SInt128.compare(left, right) >= 0;
+  }
+
+  @Specialization
+  public final boolean doInt128(final SInt128 left, final SInt128 right) {
+    return SInt128.compare(left, right) >= 0;
+  }
+
   @Specialization
   @TruffleBoundary
   public final boolean doBigInteger(final BigInteger left, final BigInteger right) {
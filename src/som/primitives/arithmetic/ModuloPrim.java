@@ -7,6 +7,8 @@ import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
+import som.vm.constants.KernelObj;
+import som.vmobjects.SInt128;
 
 
 @GenerateNodeFactory
@@ -24,13 +26,27 @@ public abstract class ModuloPrim extends ArithmeticPrim {
     return doDouble(left, (double) right);
   }
 
+  @Specialization(guards = "right != 0")
+  public final long doInt128(final SInt128 left, final long right) {
+    return SInt128.floorMod(left, right);
+  }
+
   @Specialization
   @TruffleBoundary
   public final Object doBigInteger(final BigInteger left, final BigInteger right) {
-    return reduceToLongIfPossible(left.mod(right));
+    if (right.signum() == 0) {
+      return doModuloByZero(left, 0);
+    }
+
+    // floor modulo, with the sign of the divisor, as for longs
+    BigInteger result = left.mod(right.abs());
+    if (right.signum() < 0 && result.signum() != 0) {
+      result = result.add(right);
+    }
+    return reduceToLongIfPossible(result);
   }
 
-  @Specialization
+  @Specialization(guards = "right != 0")
   @TruffleBoundary
   public final Object doBigInteger(final BigInteger left, final long right) {
     return doBigInteger(left, BigInteger.valueOf(right));
@@ -47,11 +63,16 @@ public abstract class ModuloPrim extends ArithmeticPrim {
     return doDouble(left, right);
   }
 
-  @Specialization
+  @Specialization(guards = "right != 0")
   public final long doLong(final long left, final long right) {
     return Math.floorMod(left, right);
   }
 
+  @Specialization(guards = "right == 0")
+  public final Object doModuloByZero(final Object left, final long right) {
+    return KernelObj.signalException("signalArgumentError:", "Modulo by zero");
+  }
+
   public final Object doLongPromotion(final long left, final long right) {
     return doBigInteger(BigInteger.valueOf(left), right);
   }
@@ -7,6 +7,7 @@ import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 
 import bd.primitives.Primitive;
+import som.vmobjects.SInt128;
 
 
 @GenerateNodeFactory
@@ -20,9 +21,23 @@ public abstract class SubtractionPrim extends ArithmeticPrim {
   }
 
   @Specialization
-  @TruffleBoundary
-  public final BigInteger doLongWithOverflow(final long left, final long right) {
-    return BigInteger.valueOf(left).subtract(BigInteger.valueOf(right));
+  public final Number doLongWithOverflow(final long left, final long right) {
+    return SInt128.subtract(left, right);
+  }
+
+  @Specialization
+  public final Number doInt128(final SInt128 left, final long right) {
+    return SInt128.subtract(left, right);
+  }
+
+  @Specialization
+  public final Number doLong(final long left, final SInt128 right) {
+    return SInt128.subtract(left, right);
+  }
+
+  @Specialization
+  public final Number doInt128(final SInt128 left, final SInt128 right) {
+    return SInt128.subtract(left, right);
   }
 
   @Specialization
@@ -0,0 +1,23 @@
+package som.primitives.arrays;
+
+import com.oracle.truffle.api.dsl.GenerateNodeFactory;
+import com.oracle.truffle.api.dsl.Specialization;
+
+import bd.primitives.Primitive;
+import som.interpreter.nodes.nary.UnaryExpressionNode;
+import som.vmobjects.SArray.STransferArray;
+
+
+/**
+ * Marks a transfer array to be moved instead of copied, when it is passed
+ * to another actor the next time.
+ */
+@GenerateNodeFactory
+@Primitive(primitive = "transferArrayMove:")
+public abstract class TransferArrayMovePrim extends UnaryExpressionNode {
+  @Specialization
+  public final STransferArray doTransferArray(final STransferArray receiver) {
+    receiver.moveOnTransfer();
+    return receiver;
+  }
+}
@@ -1,14 +1,17 @@
 package som.primitives.processes;
 
+import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
 import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
 
 import com.oracle.truffle.api.CompilerDirectives;
 import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.profiles.ValueProfile;
 
 import bd.primitives.Primitive;
 import som.VM;
@@ -16,6 +19,7 @@ import som.compiler.AccessModifier;
 import som.compiler.MixinBuilder.MixinDefinitionId;
 import som.interpreter.SomLanguage;
 import som.interpreter.actors.SuspendExecutionNodeGen;
+import som.interpreter.nodes.nary.BinaryComplexOperation;
 import som.interpreter.nodes.nary.BinaryComplexOperation.BinarySystemOperation;
 import som.interpreter.nodes.nary.TernaryExpressionNode;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
@@ -24,11 +28,18 @@ import som.interpreter.objectstorage.ObjectTransitionSafepoint;
 import som.interpreter.processes.SChannel;
 import som.interpreter.processes.SChannel.SChannelInput;
 import som.interpreter.processes.SChannel.SChannelOutput;
+import som.interpreter.processes.SChannel.Selector;
 import som.primitives.ObjectPrims.IsValue;
+import som.primitives.arrays.ToArgumentsArrayNode;
+import som.primitives.arrays.ToArgumentsArrayNodeFactory;
 import som.vm.Activity;
 import som.vm.Symbols;
 import som.vm.VmSettings;
+import som.vm.constants.Classes;
 import som.vm.constants.KernelObj;
+import som.vm.constants.Nil;
+import som.vmobjects.SArray;
+import som.vmobjects.SArray.SMutableArray;
 import som.vmobjects.SClass;
 import som.vmobjects.SInvokable;
 import som.vmobjects.SObject.SImmutableObject;
@@ -284,6 +295,143 @@ public abstract class ChannelPrimitives {
     }
   }
 
+  /**
+   * Reads as many values as are available into the given array, but waits
+   * for at least one. Returns the number of values read.
+   */
+  @Primitive(primitive = "procRead:into:", selector = "readInto:")
+  @GenerateNodeFactory
+  public abstract static class ReadIntoPrim extends BinaryComplexOperation {
+    @Specialization
+    public final long readInto(final SChannelInput in, final SMutableArray values) {
+      try {
+        return in.readInto(values.toObjectStorage());
+      } catch (InterruptedException e) {
+        CompilerDirectives.transferToInterpreter();
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    protected boolean isTaggedWithIgnoringEagerness(final Class<?> tag) {
+      if (tag == ChannelRead.class) {
+        return true;
+      } else {
+        return super.isTaggedWithIgnoringEagerness(tag);
+      }
+    }
+  }
+
+  /** Writes all values of the given array, in order. */
+  @Primitive(primitive = "procWrite:all:", selector = "writeAll:")
+  @GenerateNodeFactory
+  public abstract static class WriteAllPrim extends BinaryComplexOperation {
+    private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+    @Child protected IsValue isVal = IsValue.createSubNode();
+
+    @Child protected ToArgumentsArrayNode toArgs =
+        ToArgumentsArrayNodeFactory.create(null, null);
+
+    @Specialization(guards = "values.isObjectType()")
+    public final SArray writeAllObjects(final SChannelOutput out, final SArray values) {
+      writeAll(out, values.getObjectStorage(storageType));
+      return values;
+    }
+
+    @Specialization(guards = "!values.isObjectType()")
+    public final SArray writeAll(final SChannelOutput out, final SArray values) {
+      Object[] withRcvr = toArgs.executedEvaluated(values, out);
+      writeAll(out, Arrays.copyOfRange(withRcvr, 1, withRcvr.length));
+      return values;
+    }
+
+    private void writeAll(final SChannelOutput out, final Object[] values) {
+      for (Object v : values) {
+        if (!isVal.executeEvaluated(v)) {
+          KernelObj.signalExceptionWithClass("signalNotAValueWith:", v);
+        }
+      }
+
+      try {
+        out.writeAll(values);
+      } catch (InterruptedException e) {
+        CompilerDirectives.transferToInterpreter();
+        throw new RuntimeException(e);
+      }
+    }
+
+    @Override
+    protected boolean isTaggedWithIgnoringEagerness(final Class<?> tag) {
+      if (tag == ChannelWrite.class) {
+        return true;
+      } else {
+        return super.isTaggedWithIgnoringEagerness(tag);
+      }
+    }
+  }
+
+  /**
+   * Waits for the first of several channel inputs to have a value, and reads
+   * it. Returns an array with the index of the input and the value, or nil,
+   * if no value arrived within the timeout. A negative timeout waits
+   * indefinitely.
+   */
+  @Primitive(primitive = "procSelect:timeout:")
+  @GenerateNodeFactory
+  public abstract static class SelectPrim extends BinaryComplexOperation {
+    private final ValueProfile storageType = ValueProfile.createClassProfile();
+
+    @Specialization(guards = "inputs.isObjectType()")
+    public final Object select(final SArray inputs, final long timeoutMillis) {
+      Object[] storage = inputs.getObjectStorage(storageType);
+      if (storage.length == 0) {
+        KernelObj.signalException("signalArgumentError:",
+            "select: expects at least one channel input");
+      }
+      SChannelInput[] ins = new SChannelInput[storage.length];
+      for (int i = 0; i < storage.length; i++) {
+        if (!(storage[i] instanceof SChannelInput)) {
+          KernelObj.signalException("signalArgumentError:",
+              "select: expects channel inputs, but got " + storage[i]);
+        }
+        ins[i] = (SChannelInput) storage[i];
+      }
+
+      Selector selected;
+      try {
+        selected = Selector.select(ins,
+            timeoutMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(timeoutMillis));
+      } catch (InterruptedException e) {
+        CompilerDirectives.transferToInterpreter();
+        throw new RuntimeException(e);
+      }
+
+      if (selected.getIndex() < 0) {
+        return Nil.nilObject;
+      }
+      return new SMutableArray(
+          new Object[] {(long) selected.getIndex() + 1, selected.getValue()},
+          Classes.arrayClass);
+    }
+
+    @Specialization(guards = "!inputs.isObjectType()")
+    public final Object selectNone(final SArray inputs, final long timeoutMillis) {
+      KernelObj.signalException("signalArgumentError:",
+          "select: expects an array of channel inputs");
+      return Nil.nilObject;
+    }
+
+    @Override
+    protected boolean isTaggedWithIgnoringEagerness(final Class<?> tag) {
+      if (tag == ChannelRead.class) {
+        return true;
+      } else {
+        return super.isTaggedWithIgnoringEagerness(tag);
+      }
+    }
+  }
+
   @Primitive(primitive = "procIn:")
   @GenerateNodeFactory
   public abstract static class InPrim extends UnaryExpressionNode {
@@ -298,7 +446,27 @@ public abstract class ChannelPrimitives {
   public abstract static class ChannelNewPrim extends UnaryExpressionNode {
     @Specialization
     public final SChannel newChannel(final Object module) {
-      SChannel result = SChannel.create();
+      SChannel result = SChannel.create(0);
+
+      if (VmSettings.ACTOR_TRACING) {
+        ActorExecutionTrace.passiveEntityCreation(PassiveEntityType.CHANNEL,
+            result.getId(), ActorExecutionTrace.getPrimitiveCaller(sourceSection));
+      }
+      return result;
+    }
+  }
+
+  @Primitive(primitive = "procChannelNew:capacity:")
+  @GenerateNodeFactory
+  public abstract static class BufferedChannelNewPrim extends BinaryComplexOperation {
+    @Specialization
+    public final SChannel newChannel(final Object module, final long capacity) {
+      if (capacity < 0 || capacity > Integer.MAX_VALUE) {
+        KernelObj.signalException("signalArgumentError:",
+            "Channel capacity out of range: " + capacity);
+      }
+
+      SChannel result = SChannel.create((int) capacity);
 
       if (VmSettings.ACTOR_TRACING) {
         ActorExecutionTrace.passiveEntityCreation(PassiveEntityType.CHANNEL,
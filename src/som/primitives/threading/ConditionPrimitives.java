@@ -1,5 +1,7 @@
 package som.primitives.threading;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 
@@ -42,7 +44,7 @@ public final class ConditionPrimitives {
     @TruffleBoundary
     public final Condition doCondition(final Condition cond) {
       try {
-        cond.await();
+        ForkJoinPool.managedBlock(new AwaitBlocker(cond, -1));
       } catch (InterruptedException e) {
         /* doesn't tell us a lot at the moment, so it is ignored */
       }
@@ -57,10 +59,47 @@ public final class ConditionPrimitives {
     @TruffleBoundary
     public final boolean doCondition(final Condition cond, final long milliseconds) {
       try {
-        return cond.await(milliseconds, TimeUnit.MILLISECONDS);
+        AwaitBlocker blocker = new AwaitBlocker(cond, milliseconds);
+        ForkJoinPool.managedBlock(blocker);
+        return blocker.signaled;
       } catch (InterruptedException e) {
         return false;
       }
     }
   }
+
+  /**
+   * Awaits a condition, so that the pool of the waiting task or thread can
+   * compensate for it.
+   */
+  private static final class AwaitBlocker implements ManagedBlocker {
+    private final Condition cond;
+    private final long      milliseconds;
+
+    private boolean done;
+    private boolean signaled;
+
+    /** @param milliseconds to wait at most, negative to wait indefinitely */
+    AwaitBlocker(final Condition cond, final long milliseconds) {
+      this.cond = cond;
+      this.milliseconds = milliseconds;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return done;
+    }
+
+    @Override
+    public boolean block() throws InterruptedException {
+      if (milliseconds < 0) {
+        cond.await();
+        signaled = true;
+      } else {
+        signaled = cond.await(milliseconds, TimeUnit.MILLISECONDS);
+      }
+      done = true;
+      return true;
+    }
+  }
 }
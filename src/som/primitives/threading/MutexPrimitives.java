@@ -1,5 +1,7 @@
 package som.primitives.threading;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -26,7 +28,15 @@ public final class MutexPrimitives {
     @TruffleBoundary
     @Specialization
     public static final ReentrantLock lock(final ReentrantLock lock) {
-      lock.lock();
+      if (!lock.tryLock()) {
+        try {
+          ForkJoinPool.managedBlock(new LockBlocker(lock));
+        } catch (InterruptedException e) {
+          /* doesn't tell us a lot at the moment, so it is ignored */
+          lock.lock();
+        }
+      }
+      TaskThreads.lockAcquired();
       return lock;
     }
 
@@ -40,6 +50,34 @@ public final class MutexPrimitives {
     }
   }
 
+  /**
+   * Waits for a contended lock, so that the pool of the waiting task or
+   * thread can compensate for it.
+   */
+  private static final class LockBlocker implements ManagedBlocker {
+    private final ReentrantLock lock;
+    private boolean             acquired;
+
+    LockBlocker(final ReentrantLock lock) {
+      this.lock = lock;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      if (!acquired) {
+        acquired = lock.tryLock();
+      }
+      return acquired;
+    }
+
+    @Override
+    public boolean block() {
+      lock.lock();
+      acquired = true;
+      return true;
+    }
+  }
+
   @GenerateNodeFactory
   @Primitive(primitive = "threadingUnlock:", selector = "unlock")
   public abstract static class UnlockPrim extends UnaryExpressionNode {
@@ -47,6 +85,7 @@ public final class MutexPrimitives {
     @Specialization
     public static final ReentrantLock unlock(final ReentrantLock lock) {
       lock.unlock();
+      TaskThreads.lockReleased();
       return lock;
     }
 
@@ -2,6 +2,8 @@ package som.primitives.threading;
 
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinPool.ManagedBlocker;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.RecursiveTask;
 
@@ -28,6 +30,9 @@ public final class TaskThreads {
     protected final Object[] argArray;
     protected final boolean  stopOnRoot;
 
+    /** The pool executing this task. */
+    private transient ForkJoinPool pool;
+
     public SomTaskOrThread(final Object[] argArray, final boolean stopOnRoot) {
       this.argArray = argArray;
       this.stopOnRoot = stopOnRoot;
@@ -42,6 +47,47 @@ public final class TaskThreads {
       return false;
     }
 
+    /**
+     * Schedules this task. A worker of the pool pushes it on its own queue,
+     * where it can be stolen by other workers.
+     */
+    public final void executeOn(final ForkJoinPool pool) {
+      this.pool = pool;
+      if (isWorkerOf(pool)) {
+        fork();
+      } else {
+        pool.execute(this);
+      }
+    }
+
+    /**
+     * Runs this task directly in the current one, as if it was forked and
+     * joined immediately. A failure is reported on join.
+     */
+    public final void runInline() {
+      try {
+        RootCallTarget target = ((SBlock) argArray[0]).getMethod().getCallTarget();
+        complete(target.call(argArray));
+      } catch (Throwable t) {
+        completeExceptionally(t);
+      }
+    }
+
+    /**
+     * Waits for the result of this task. A worker of the task's own pool
+     * helps or compensates in {@link #join()}. Any other thread, for instance
+     * a thread joining a task, blocks via a {@link ManagedBlocker}, so that
+     * its pool can compensate.
+     */
+    public final Object joinBlocking() throws InterruptedException {
+      if (!isDone()) {
+        if (!isWorkerOf(pool)) {
+          ForkJoinPool.managedBlock(new JoinBlocker(this));
+        }
+      }
+      return join();
+    }
+
     @Override
     public int getNextTraceBufferId() {
       throw new UnsupportedOperationException("Should never be executed");
@@ -192,6 +238,71 @@ public final class TaskThreads {
     }
   }
 
+  private static boolean isWorkerOf(final ForkJoinPool pool) {
+    Thread current = Thread.currentThread();
+    return current instanceof ForkJoinWorkerThread
+        && ((ForkJoinWorkerThread) current).getPool() == pool;
+  }
+
+  /**
+   * Lazy task creation: a worker that has more tasks queued than other
+   * workers are likely to steal, runs new tasks directly. This way, only
+   * the first levels of a recursive decomposition create tasks that run in
+   * parallel, and the leaves avoid the scheduling overhead.
+   *
+   * <p>
+   * A task run directly cannot wait for anything its spawner does after
+   * spawning it. Thus, this is only enabled with -Dsom.taskInlining=true,
+   * for programs with strict fork-join tasks. Tasks spawned while holding
+   * a mutex are never run directly, because they would share the lock of
+   * the spawner.
+   */
+  public static boolean shouldRunInline(final ForkJoinPool pool) {
+    if (!VmSettings.TASK_INLINING || !isWorkerOf(pool)) {
+      return false;
+    }
+    return ((ForkJoinThread) Thread.currentThread()).locksHeld == 0
+        && ForkJoinTask.getSurplusQueuedTaskCount() > VmSettings.TASK_INLINING_SURPLUS;
+  }
+
+  /** Counts the mutexes held by a worker, to decide on running tasks directly. */
+  public static void lockAcquired() {
+    if (VmSettings.TASK_INLINING) {
+      Thread current = Thread.currentThread();
+      if (current instanceof ForkJoinThread) {
+        ((ForkJoinThread) current).locksHeld += 1;
+      }
+    }
+  }
+
+  public static void lockReleased() {
+    if (VmSettings.TASK_INLINING) {
+      Thread current = Thread.currentThread();
+      if (current instanceof ForkJoinThread) {
+        ((ForkJoinThread) current).locksHeld -= 1;
+      }
+    }
+  }
+
+  private static final class JoinBlocker implements ManagedBlocker {
+    private final SomTaskOrThread task;
+
+    JoinBlocker(final SomTaskOrThread task) {
+      this.task = task;
+    }
+
+    @Override
+    public boolean isReleasable() {
+      return task.isDone();
+    }
+
+    @Override
+    public boolean block() {
+      task.quietlyJoin();
+      return true;
+    }
+  }
+
   public static final class ForkJoinThreadFactory implements ForkJoinWorkerThreadFactory {
     @Override
     public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
@@ -202,6 +313,9 @@ public final class TaskThreads {
   private static final class ForkJoinThread extends TracingActivityThread {
     private SomTaskOrThread task;
 
+    /** Number of mutexes currently held, only with task inlining. */
+    private int locksHeld;
+
     protected ForkJoinThread(final ForkJoinPool pool) {
       super(pool);
     }
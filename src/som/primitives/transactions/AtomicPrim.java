@@ -1,5 +1,6 @@
 package som.primitives.transactions;
 
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.Specialization;
 import com.oracle.truffle.api.frame.VirtualFrame;
@@ -10,7 +11,9 @@ import som.VM;
 import som.interpreter.actors.SuspendExecutionNodeGen;
 import som.interpreter.nodes.nary.BinaryComplexOperation.BinarySystemOperation;
 import som.interpreter.nodes.nary.UnaryExpressionNode;
+import som.interpreter.transactions.ContentionManager;
 import som.interpreter.transactions.Transactions;
+import som.interpreter.transactions.TxStatistics;
 import som.vm.VmSettings;
 import som.vmobjects.SBlock;
 import som.vmobjects.SClass;
@@ -30,12 +33,19 @@ public abstract class AtomicPrim extends BinarySystemOperation {
   @Child protected AbstractBreakpointNode beforeCommit;
   @Child protected UnaryExpressionNode    haltNode;
 
+  @CompilationFinal private TxStatistics stats;
+
+  private static final ContentionManager contentionManager = ContentionManager.create();
+
   @Override
   public final AtomicPrim initialize(final VM vm) {
     super.initialize(vm);
     beforeCommit = insert(
         Breakpoints.create(sourceSection, BreakpointType.ATOMIC_BEFORE_COMMIT, vm));
     haltNode = SuspendExecutionNodeGen.create(0, null).initialize(sourceSection);
+    if (VmSettings.TX_STATS) {
+      stats = TxStatistics.forSource(sourceSection);
+    }
     return this;
   }
 
@@ -48,8 +58,12 @@ public abstract class AtomicPrim extends BinarySystemOperation {
       haltNode.executeEvaluated(frame, block);
     }
 
+    int aborts = 0;
+    long accessed = 0;
+
     while (true) {
-      Transactions tx = Transactions.startTransaction();
+      boolean irrevocable = contentionManager.runIrrevocably(aborts);
+      Transactions tx = Transactions.startTransaction(irrevocable);
       try {
         if (VmSettings.TRUFFLE_DEBUGGER_ENABLED) {
           TracingActivityThread.currentThread().enterConcurrentScope(EntityType.TRANSACTION);
@@ -73,11 +87,14 @@ public abstract class AtomicPrim extends BinarySystemOperation {
               SteppingType.STEP_AFTER_COMMIT.isSet()) {
             haltNode.executeEvaluated(frame, result);
           }
+          if (VmSettings.TX_STATS) {
+            stats.committed(aborts, irrevocable);
+          }
 
-          // TODO: still need to make sure that we don't have
-          // a working copy as `result`, I think, or do I?
           return result;
         }
+      } catch (Transactions.Abort e) {
+        // read an inconsistent state, retry without committing
       } catch (Throwable t) {
         if (VmSettings.TRUFFLE_DEBUGGER_ENABLED &&
             SteppingType.STEP_TO_COMMIT.isSet()) {
@@ -89,9 +106,10 @@ public abstract class AtomicPrim extends BinarySystemOperation {
               SteppingType.STEP_AFTER_COMMIT.isSet()) {
             haltNode.executeEvaluated(frame, t);
           }
+          if (VmSettings.TX_STATS) {
+            stats.committed(aborts, irrevocable);
+          }
 
-          // TODO: still need to make sure that we don't have
-          // a working copy as value in `t`, I think, or do I?
           throw t;
         }
       } finally {
@@ -99,6 +117,13 @@ public abstract class AtomicPrim extends BinarySystemOperation {
           TracingActivityThread.currentThread().leaveConcurrentScope(EntityType.TRANSACTION);
         }
       }
+
+      aborts += 1;
+      accessed += tx.getNumberOfAccessed();
+      if (VmSettings.TX_STATS) {
+        stats.aborted();
+      }
+      contentionManager.onAbort(aborts, accessed);
     }
   }
 
@@ -65,7 +65,9 @@ import som.primitives.SystemPrimsFactory;
 import som.primitives.TimerPrimFactory;
 import som.primitives.UnequalsPrimFactory;
 import som.primitives.actors.ActorClassesFactory;
+import som.primitives.actors.BatchSendPrimFactory;
 import som.primitives.actors.CreateActorPrimFactory;
+import som.primitives.actors.MailboxPrimsFactory;
 import som.primitives.actors.PromisePrimsFactory;
 import som.primitives.arithmetic.AdditionPrimFactory;
 import som.primitives.arithmetic.DividePrimFactory;
@@ -91,6 +93,7 @@ import som.primitives.arrays.DoPrimFactory;
 import som.primitives.arrays.NewImmutableArrayNodeFactory;
 import som.primitives.arrays.NewPrimFactory;
 import som.primitives.arrays.PutAllNodeFactory;
+import som.primitives.arrays.TransferArrayMovePrimFactory;
 import som.primitives.bitops.BitAndPrimFactory;
 import som.primitives.bitops.BitOrPrimFactory;
 import som.primitives.bitops.BitXorPrimFactory;
@@ -183,6 +186,7 @@ public class Primitives extends PrimitiveLoader<VM, ExpressionNode, SSymbol> {
     allFactories.addAll(IfMessageNodeGen.getFactories());
     allFactories.addAll(IntegerPrimsFactory.getFactories());
     allFactories.addAll(KernelObjFactory.getFactories());
+    allFactories.addAll(MailboxPrimsFactory.getFactories());
     allFactories.addAll(MethodPrimsFactory.getFactories());
     allFactories.addAll(MirrorPrimsFactory.getFactories());
     allFactories.addAll(ObjectPrimsFactory.getFactories());
@@ -247,11 +251,13 @@ public class Primitives extends PrimitiveLoader<VM, ExpressionNode, SSymbol> {
     allFactories.add(SizeAndLengthPrimFactory.getInstance());
     allFactories.add(SqrtPrimFactory.getInstance());
     allFactories.add(SubtractionPrimFactory.getInstance());
+    allFactories.add(TransferArrayMovePrimFactory.getInstance());
     allFactories.add(UnequalsPrimFactory.getInstance());
     allFactories.add(new WhileWithStaticBlocksNodeFactory());
     allFactories.add(TimerPrimFactory.getInstance());
 
     allFactories.add(CreateActorPrimFactory.getInstance());
+    allFactories.add(BatchSendPrimFactory.getInstance());
     allFactories.add(ResolvePromiseNodeFactory.getInstance());
     allFactories.add(ErrorPromiseNodeFactory.getInstance());
 
@@ -1,6 +1,10 @@
 package som.vm;
 
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
@@ -8,20 +12,64 @@ import bd.basic.IdProvider;
 import som.vmobjects.SSymbol;
 
 
+/**
+ * Interns symbols, concurrently from all threads of the VM.
+ *
+ * <p>
+ * The table holds symbols weakly, so that symbols a program creates at run
+ * time, and does not use anymore, can be collected. Symbols that are in use
+ * are referenced from their users, and thus keep their identity. With actor
+ * tracing, symbols are kept alive, so that each symbol keeps its id for the
+ * trace.
+ */
 public final class Symbols implements IdProvider<SSymbol> {
 
   @TruffleBoundary
   public static SSymbol symbolFor(final String string) {
     String interned = string.intern();
 
-    SSymbol result = symbolTable.get(interned);
-    if (result != null) {
-      return result;
+    SymbolRef ref = symbolTable.get(interned);
+    if (ref != null) {
+      SSymbol result = ref.get();
+      if (result != null) {
+        return result;
+      }
     }
 
-    result = new SSymbol(interned);
-    symbolTable.put(string, result);
-    return result;
+    removeCollectedSymbols();
+
+    SSymbol[] result = new SSymbol[1];
+    symbolTable.compute(interned, (key, old) -> {
+      SSymbol sym = old == null ? null : old.get();
+      if (sym != null) {
+        result[0] = sym;
+        return old;
+      }
+
+      sym = new SSymbol(key);
+      if (VmSettings.ACTOR_TRACING) {
+        retainedSymbols.add(sym);
+      }
+      result[0] = sym;
+      return new SymbolRef(sym, key);
+    });
+    return result[0];
+  }
+
+  private static void removeCollectedSymbols() {
+    Reference<? extends SSymbol> ref;
+    while ((ref = collectedSymbols.poll()) != null) {
+      symbolTable.remove(((SymbolRef) ref).key, ref);
+    }
+  }
+
+  private static final class SymbolRef extends WeakReference<SSymbol> {
+    private final String key;
+
+    SymbolRef(final SSymbol symbol, final String key) {
+      super(symbol, collectedSymbols);
+      this.key = key;
+    }
   }
 
   private Symbols() {}
@@ -31,7 +79,14 @@ public final class Symbols implements IdProvider<SSymbol> {
     return symbolFor(id);
   }
 
-  private static final HashMap<String, SSymbol> symbolTable = new HashMap<>();
+  private static final ConcurrentHashMap<String, SymbolRef> symbolTable =
+      new ConcurrentHashMap<>();
+
+  private static final ReferenceQueue<SSymbol> collectedSymbols = new ReferenceQueue<>();
+
+  /** Keeps symbols alive, when their ids need to be stable for tracing. */
+  private static final ConcurrentLinkedQueue<SSymbol> retainedSymbols =
+      new ConcurrentLinkedQueue<>();
 
   public static final SSymbol NEW             = symbolFor("new");
   public static final SSymbol DEF_CLASS       = symbolFor("`define`cls");
@@ -2,6 +2,7 @@ package som.vm;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import bd.settings.Settings;
 
@@ -24,6 +25,20 @@ public class VmSettings implements Settings {
   public static final boolean PROMISE_RESOLUTION;
   public static final boolean PROMISE_RESOLVED_WITH;
   public static final boolean REPLAY;
+  public static final boolean LOCK_FREE_MAILBOX;
+  public static final boolean ACTOR_AFFINITY_SCHEDULER;
+  public static final int     ACTOR_QUANTUM_MESSAGES;
+  public static final long    ACTOR_QUANTUM_NANOS;
+  public static final boolean ACTOR_QUANTUM_STATS;
+  public static final int     MAILBOX_CAPACITY;
+  public static final String  MAILBOX_OVERFLOW;
+  public static final String  TX_CONTENTION_POLICY;
+  public static final int     TX_IRREVOCABLE_AFTER;
+  public static final boolean TX_STATS;
+  public static final boolean FAR_REF_STATS;
+  public static final boolean LOOKUP_CACHE_STATS;
+  public static final boolean TASK_INLINING;
+  public static final int     TASK_INLINING_SURPLUS;
   public static final boolean SUPERINSTRUCTIONS;
   public static final boolean WRITE_HUMAN_FRIENDLY_SUPERINSTRUCTION_REPORT;
   public static final boolean SUPERINSTRUCTIONS_REPORT_VERBOSE;
@@ -54,6 +69,34 @@ public class VmSettings implements Settings {
     REPLAY = getBool("som.replay", false);
     DISABLE_TRACE_FILE = getBool("som.disableTraceFile", false) || REPLAY;
 
+    // replay relies on the synchronized mailbox to hold back unexpected messages
+    String mailbox = System.getProperty("som.mailbox", "lockfree");
+    LOCK_FREE_MAILBOX = !REPLAY && "lockfree".equals(mailbox);
+
+    ACTOR_AFFINITY_SCHEDULER =
+        "affinity".equals(System.getProperty("som.actorScheduler", "forkjoin"));
+
+    // budget for an actor's executor before it yields, 0 means unlimited
+    ACTOR_QUANTUM_MESSAGES = Integer.getInteger("som.actorQuantumMessages", 0);
+    ACTOR_QUANTUM_NANOS =
+        TimeUnit.MICROSECONDS.toNanos(Long.getLong("som.actorQuantumMicros", 0));
+    ACTOR_QUANTUM_STATS = getBool("som.actorQuantumStats", false);
+
+    // default bound for actor mailboxes, 0 means unbounded, not used for replay
+    MAILBOX_CAPACITY = Integer.getInteger("som.mailboxCapacity", 0);
+    MAILBOX_OVERFLOW = System.getProperty("som.mailboxOverflow", "block");
+
+    // retry policy for transactions, 0 aborts means never become irrevocable
+    TX_CONTENTION_POLICY = System.getProperty("som.txContention", "immediate");
+    TX_IRREVOCABLE_AFTER = Integer.getInteger("som.txIrrevocableAfter", 0);
+    TX_STATS = getBool("som.txStats", false);
+
+    // counts far references allocated and reused, reported at exit
+    FAR_REF_STATS = getBool("som.farRefStats", false);
+
+    // counts hits and misses of the lookup cache for megamorphic sends
+    LOOKUP_CACHE_STATS = getBool("som.lookupCacheStats", false);
+
     String atConfig = System.getProperty("som.actorTracingCfg", "");
     List<String> al = Arrays.asList(atConfig.split(":"));
     boolean filter =
@@ -67,6 +110,14 @@ public class VmSettings implements Settings {
     ACTOR_TRACING = TRUFFLE_DEBUGGER_ENABLED || getBool("som.actorTracing", false) ||
         REPLAY || MESSAGE_PARAMETERS || PROMISE_CREATION;
 
+    // run spawned tasks directly, when the worker has more queued tasks than
+    // the surplus. Only valid for programs with strict fork-join tasks, which
+    // never wait for their spawner, so it needs to be enabled explicitly.
+    // Tracing needs each task.
+    TASK_INLINING_SURPLUS = Integer.getInteger("som.taskInliningSurplus", 3);
+    TASK_INLINING = getBool("som.taskInlining", false) && TASK_INLINING_SURPLUS >= 0
+        && !ACTOR_TRACING;
+
     boolean dm = getBool("som.dynamicMetrics", false);
     DYNAMIC_METRICS = dm;
     INSTRUMENTATION = dm || getBool(INSTRUMENTATION_PROP, false);
@@ -13,12 +13,13 @@ import som.vm.Symbols;
 import som.vmobjects.SClass;
 import som.vmobjects.SInvokable;
 import som.vmobjects.SObject.SImmutableObject;
+import som.vmobjects.SObject.SImmutableObject5;
 
 
 public final class KernelObj {
   private KernelObj() {}
 
-  public static final SImmutableObject   kernel = new SImmutableObject(true, true);
+  public static final SImmutableObject   kernel = new SImmutableObject5(true, true);
   @CompilationFinal public static SClass indexOutOfBoundsClass;
 
   public static Object signalException(final String selector, final Object arg) {
@@ -212,53 +212,81 @@ public abstract class SArray extends SAbstractObject {
       super(storage, clazz);
     }
 
-    public SMutableArray shallowCopy() {
-      Object storageClone;
-      if (isEmptyType()) {
-        storageClone = storage;
-      } else if (isPartiallyEmptyType()) {
-        storageClone = ((PartiallyEmptyArray) storage).copy();
-      } else if (isBooleanType()) {
-        storageClone = ((boolean[]) storage).clone();
-      } else if (isDoubleType()) {
-        storageClone = ((double[]) storage).clone();
-      } else if (isLongType()) {
-        storageClone = ((long[]) storage).clone();
+    /**
+     * Length of the array, independent of its storage strategy. Reads the
+     * storage only once, so that it can be used without holding the lock.
+     */
+    public int txLength() {
+      Object s = storage;
+      if (s instanceof Integer) {
+        return (int) s;
+      } else if (s instanceof PartiallyEmptyArray) {
+        return ((PartiallyEmptyArray) s).getLength();
+      } else if (s instanceof boolean[]) {
+        return ((boolean[]) s).length;
+      } else if (s instanceof double[]) {
+        return ((double[]) s).length;
+      } else if (s instanceof long[]) {
+        return ((long[]) s).length;
       } else {
-        assert isObjectType();
-        storageClone = ((Object[]) storage).clone();
+        return ((Object[]) s).length;
       }
-
-      return new SMutableArray(storageClone, clazz);
     }
 
-    public boolean txEquals(final SMutableArray a) {
-      if (storage.getClass() != a.storage.getClass()) {
-        // TODO: strictly speaking this isn't correct,
-        // there could be long[].equals(Object[]) that is true
-        // but, we are prone to ABA problems, so, I don't think this matters either
-        return false;
-      }
-
+    /**
+     * Reads an element for a transaction, the index is 0-based and needs to
+     * be in bounds.
+     */
+    public Object txGet(final int idx) {
       if (isEmptyType()) {
-        return true;
+        return Nil.nilObject;
       } else if (isPartiallyEmptyType()) {
-        return Arrays.equals(((PartiallyEmptyArray) storage).arr,
-            ((PartiallyEmptyArray) a.storage).arr);
+        return ((PartiallyEmptyArray) storage).get(idx);
       } else if (isBooleanType()) {
-        return Arrays.equals((boolean[]) storage, (boolean[]) a.storage);
+        return ((boolean[]) storage)[idx];
       } else if (isDoubleType()) {
-        return Arrays.equals((double[]) storage, (double[]) a.storage);
+        return ((double[]) storage)[idx];
       } else if (isLongType()) {
-        return Arrays.equals((long[]) storage, (long[]) a.storage);
+        return ((long[]) storage)[idx];
       } else {
         assert isObjectType();
-        return Arrays.equals((Object[]) storage, (Object[]) a.storage);
+        return ((Object[]) storage)[idx];
+      }
+    }
+
+    /**
+     * Writes back an element on commit of a transaction, the index is 0-based
+     * and needs to be in bounds. If the storage strategy does not fit the
+     * value, the array is generalized to object storage.
+     */
+    public void txPut(final int idx, final Object value) {
+      if (isLongType() && value instanceof Long) {
+        ((long[]) storage)[idx] = (long) value;
+      } else if (isDoubleType() && value instanceof Double) {
+        ((double[]) storage)[idx] = (double) value;
+      } else if (isBooleanType() && value instanceof Boolean) {
+        ((boolean[]) storage)[idx] = (boolean) value;
+      } else if (isEmptyType() && value == Nil.nilObject) {
+        return;
+      } else {
+        toObjectStorage()[idx] = value;
       }
     }
 
-    public void txSet(final SMutableArray a) {
-      storage = a.storage;
+    /**
+     * Generalizes the storage strategy to objects, if necessary.
+     *
+     * @return the object storage
+     */
+    public Object[] toObjectStorage() {
+      if (!isObjectType()) {
+        Object[] arr = new Object[txLength()];
+        for (int i = 0; i < arr.length; i++) {
+          arr[i] = txGet(i);
+        }
+        storage = arr;
+      }
+      return (Object[]) storage;
     }
 
     /**
@@ -391,6 +419,12 @@ public abstract class SArray extends SAbstractObject {
   }
 
   public static final class STransferArray extends SMutableArray {
+    /**
+     * Set by the sender, when it does not use the array anymore. The next
+     * transfer then hands the storage to the receiver without copying it.
+     */
+    private boolean moveOnTransfer;
+
     public STransferArray(final long length, final SClass clazz) {
       super(length, clazz);
     }
@@ -426,5 +460,24 @@ public abstract class SArray extends SAbstractObject {
     public STransferArray cloneBasics() {
       return new STransferArray(this, clazz);
     }
+
+    public void moveOnTransfer() {
+      moveOnTransfer = true;
+    }
+
+    public boolean isMovedOnTransfer() {
+      return moveOnTransfer;
+    }
+
+    /**
+     * @return a new array with the storage of this one, which is left empty,
+     *         so that the sender cannot access the storage anymore
+     */
+    public STransferArray takeStorage() {
+      STransferArray newArr = new STransferArray(storage, clazz);
+      storage = 0;
+      moveOnTransfer = false;
+      return newArr;
+    }
   }
 }
@@ -41,6 +41,7 @@ import som.compiler.MixinDefinition;
 import som.compiler.MixinDefinition.ClassSlotDefinition;
 import som.compiler.MixinDefinition.SlotDefinition;
 import som.interpreter.nodes.dispatch.Dispatchable;
+import som.interpreter.nodes.dispatch.LookupCache;
 import som.interpreter.objectstorage.ClassFactory;
 import som.interpreter.objectstorage.ObjectLayout;
 import som.vm.constants.Classes;
@@ -188,6 +189,8 @@ public final class SClass extends SObjectWithClass {
     this.isArray = isArray;
     this.instanceClassGroup = classFactory;
     // assert instanceClassGroup != null || !ObjectSystem.isInitialized();
+
+    LookupCache.invalidate();
   }
 
   /**
@@ -0,0 +1,107 @@
+package som.vmobjects;
+
+import java.util.Arrays;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+
+/**
+ * A string that is the result of a concatenation. It is used transparently
+ * as a {@link String}, to which it is converted on demand, see
+ * {@link som.interpreter.Types}.
+ *
+ * <p>
+ * Strings built by repeated concatenation share a buffer. Each string is a
+ * prefix of the buffer. The string that ends at the end of the used part of
+ * the buffer appends in place, and all others copy their prefix first.
+ * Thus, building a string incrementally takes linear instead of quadratic
+ * time.
+ */
+public final class SConcatString {
+
+  /** Shorter results of a concatenation are plain strings. */
+  private static final int MIN_LENGTH = 32;
+
+  private final Buffer buffer;
+  private final int    length;
+
+  /** The flattened string, created on demand. */
+  private String flat;
+
+  private SConcatString(final Buffer buffer, final int length) {
+    this.buffer = buffer;
+    this.length = length;
+  }
+
+  /** @return a {@link String} or an {@link SConcatString} */
+  @TruffleBoundary
+  public static Object concat(final String left, final String right) {
+    int len = left.length() + right.length();
+    if (len < MIN_LENGTH) {
+      return left.concat(right);
+    }
+
+    // most results are not appended to, so only appends grow the buffer
+    Buffer b = new Buffer(len);
+    b.append(left);
+    b.append(right);
+    return new SConcatString(b, len);
+  }
+
+  @TruffleBoundary
+  public SConcatString append(final String str) {
+    Buffer b = buffer;
+    synchronized (b) {
+      if (b.used == length) {
+        b.append(str);
+        return new SConcatString(b, b.used);
+      }
+    }
+
+    Buffer copy = new Buffer((length + str.length()) * 2);
+    copy.append(toString());
+    copy.append(str);
+    return new SConcatString(copy, copy.used);
+  }
+
+  public int length() {
+    return length;
+  }
+
+  @Override
+  public String toString() {
+    String s = flat;
+    if (s == null) {
+      s = flatten();
+    }
+    return s;
+  }
+
+  @TruffleBoundary
+  private String flatten() {
+    String s;
+    synchronized (buffer) {
+      s = new String(buffer.chars, 0, length);
+    }
+    flat = s;
+    return s;
+  }
+
+  private static final class Buffer {
+    private char[] chars;
+    private int    used;
+
+    Buffer(final int capacity) {
+      chars = new char[capacity];
+    }
+
+    void append(final String str) {
+      int newUsed = used + str.length();
+      if (newUsed > chars.length) {
+        chars = Arrays.copyOf(chars, Math.max(newUsed, chars.length * 2));
+      }
+      str.getChars(0, str.length(), chars, used);
+      used = newUsed;
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package som.vmobjects;
+
+import java.math.BigInteger;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+
+/**
+ * An integer that does not fit into a long, but into 128 bits. It is used
+ * transparently as a {@link BigInteger}, to which it is converted on demand,
+ * see {@link som.interpreter.Types}. Addition, subtraction, multiplication
+ * with a long, shifting, comparison, and modulo with a long operate on it
+ * directly, without allocating BigIntegers.
+ *
+ * <p>
+ * The operations return a Long if the result fits, an SInt128 if it fits
+ * into 128 bits, and a BigInteger otherwise.
+ */
+public final class SInt128 extends Number {
+  private static final long serialVersionUID = 1L;
+
+  private final long high;
+  private final long low;
+
+  private SInt128(final long high, final long low) {
+    assert high != (low >> 63) : "Should have been a long";
+    this.high = high;
+    this.low = low;
+  }
+
+  private static Number create(final long high, final long low) {
+    if (high == (low >> 63)) {
+      return low;
+    }
+    return new SInt128(high, low);
+  }
+
+  /** @return a long, an SInt128, or the given BigInteger */
+  @TruffleBoundary
+  public static Number reduce(final BigInteger value) {
+    int bits = value.bitLength();
+    if (bits < Long.SIZE) {
+      return value.longValue();
+    } else if (bits < 2 * Long.SIZE) {
+      return new SInt128(value.shiftRight(Long.SIZE).longValue(), value.longValue());
+    }
+    return value;
+  }
+
+  public static Number add(final long a, final long b) {
+    return add(a >> 63, a, b >> 63, b);
+  }
+
+  public static Number add(final SInt128 a, final long b) {
+    return add(a.high, a.low, b >> 63, b);
+  }
+
+  public static Number add(final SInt128 a, final SInt128 b) {
+    return add(a.high, a.low, b.high, b.low);
+  }
+
+  private static Number add(final long aHigh, final long aLow, final long bHigh,
+      final long bLow) {
+    long low = aLow + bLow;
+    long carry = Long.compareUnsigned(low, aLow) < 0 ? 1 : 0;
+    long high = aHigh + bHigh + carry;
+
+    // overflow, if both have the same sign, and the result does not
+    if (((aHigh ^ high) & (bHigh ^ high)) < 0) {
+      return addBig(aHigh, aLow, bHigh, bLow);
+    }
+    return create(high, low);
+  }
+
+  public static Number subtract(final long a, final long b) {
+    return subtract(a >> 63, a, b >> 63, b);
+  }
+
+  public static Number subtract(final SInt128 a, final long b) {
+    return subtract(a.high, a.low, b >> 63, b);
+  }
+
+  public static Number subtract(final long a, final SInt128 b) {
+    return subtract(a >> 63, a, b.high, b.low);
+  }
+
+  public static Number subtract(final SInt128 a, final SInt128 b) {
+    return subtract(a.high, a.low, b.high, b.low);
+  }
+
+  private static Number subtract(final long aHigh, final long aLow, final long bHigh,
+      final long bLow) {
+    long low = aLow - bLow;
+    long borrow = Long.compareUnsigned(aLow, bLow) < 0 ? 1 : 0;
+    long high = aHigh - bHigh - borrow;
+
+    // overflow, if the signs differ, and the result has the sign of b
+    if (((aHigh ^ bHigh) & (aHigh ^ high)) < 0) {
+      return subtractBig(aHigh, aLow, bHigh, bLow);
+    }
+    return create(high, low);
+  }
+
+  public static Number multiply(final long a, final long b) {
+    return create(multiplyHigh(a, b), a * b);
+  }
+
+  public static Number multiply(final SInt128 a, final long b) {
+    boolean negative = (a.high < 0) != (b < 0);
+
+    // multiply the magnitudes, b's magnitude is an unsigned long
+    long aHigh = a.high;
+    long aLow = a.low;
+    if (aHigh < 0) {
+      aLow = -aLow;
+      aHigh = ~aHigh + (aLow == 0 ? 1 : 0);
+    }
+    long m = Math.abs(b); // for Long.MIN_VALUE, this is 2^63 as unsigned value
+
+    long low = aLow * m;
+    long carry = unsignedMultiplyHigh(aLow, m);
+    long mid = aHigh * m;
+    long high = mid + carry;
+    boolean fits = high >= 0 || (negative && high == Long.MIN_VALUE && low == 0);
+    if (unsignedMultiplyHigh(aHigh, m) != 0 || Long.compareUnsigned(high, mid) < 0
+        || !fits) {
+      return multiplyBig(a, b);
+    }
+
+    if (negative) {
+      low = -low;
+      high = ~high + (low == 0 ? 1 : 0);
+    }
+    return create(high, low);
+  }
+
+  @TruffleBoundary
+  private static BigInteger addBig(final long aHigh, final long aLow, final long bHigh,
+      final long bLow) {
+    return toBigInteger(aHigh, aLow).add(toBigInteger(bHigh, bLow));
+  }
+
+  @TruffleBoundary
+  private static BigInteger subtractBig(final long aHigh, final long aLow, final long bHigh,
+      final long bLow) {
+    return toBigInteger(aHigh, aLow).subtract(toBigInteger(bHigh, bLow));
+  }
+
+  @TruffleBoundary
+  private static BigInteger multiplyBig(final SInt128 a, final long b) {
+    return a.toBigInteger().multiply(BigInteger.valueOf(b));
+  }
+
+  /** @param shift needs to be smaller than 64 */
+  public static Number shiftLeft(final long a, final long shift) {
+    assert 0 <= shift && shift < Long.SIZE;
+    if (shift == 0) {
+      return a;
+    }
+    // the result has at most 126 bits, and always fits
+    return create(a >> (Long.SIZE - shift), a << shift);
+  }
+
+  /** @return the modulo, with the sign of the divisor, as {@link Math#floorMod} */
+  public static long floorMod(final SInt128 a, final long m) {
+    if (m == 0) {
+      throw new ArithmeticException("BigInteger: modulus not positive");
+    }
+
+    long aHigh = a.high;
+    long aLow = a.low;
+    if (aHigh < 0) {
+      aLow = -aLow;
+      aHigh = ~aHigh + (aLow == 0 ? 1 : 0);
+    }
+    long d = Math.abs(m); // for Long.MIN_VALUE, this is 2^63 as unsigned value
+
+    // long division of the magnitude, bit by bit for the lower half
+    long r = Long.remainderUnsigned(aHigh, d);
+    for (int i = Long.SIZE - 1; i >= 0; i--) {
+      r = (r << 1) | ((aLow >>> i) & 1);
+      if (Long.compareUnsigned(r, d) >= 0) {
+        r -= d;
+      }
+    }
+
+    long rem = a.high < 0 ? -r : r;
+    if (rem != 0 && (rem < 0) != (m < 0)) {
+      rem += m;
+    }
+    return rem;
+  }
+
+  public static int compare(final SInt128 a, final long b) {
+    return compare(a.high, a.low, b >> 63, b);
+  }
+
+  public static int compare(final long a, final SInt128 b) {
+    return compare(a >> 63, a, b.high, b.low);
+  }
+
+  public static int compare(final SInt128 a, final SInt128 b) {
+    return compare(a.high, a.low, b.high, b.low);
+  }
+
+  private static int compare(final long aHigh, final long aLow, final long bHigh,
+      final long bLow) {
+    if (aHigh != bHigh) {
+      return Long.compare(aHigh, bHigh);
+    }
+    return Long.compareUnsigned(aLow, bLow);
+  }
+
+  /** Same as {@code Math.multiplyHigh} of Java 9, see Hacker's Delight, 8-2. */
+  private static long multiplyHigh(final long x, final long y) {
+    long x1 = x >> 32;
+    long x2 = x & 0xFFFFFFFFL;
+    long y1 = y >> 32;
+    long y2 = y & 0xFFFFFFFFL;
+    long z2 = x2 * y2;
+    long t = x1 * y2 + (z2 >>> 32);
+    long z1 = t & 0xFFFFFFFFL;
+    long z0 = t >> 32;
+    z1 += x2 * y1;
+    return x1 * y1 + z0 + (z1 >> 32);
+  }
+
+  private static long unsignedMultiplyHigh(final long x, final long y) {
+    return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+  }
+
+  @TruffleBoundary
+  private static BigInteger toBigInteger(final long high, final long low) {
+    byte[] bytes = new byte[2 * Long.BYTES];
+    for (int i = 0; i < Long.BYTES; i++) {
+      bytes[i] = (byte) (high >>> (Long.SIZE - 8 * (i + 1)));
+      bytes[Long.BYTES + i] = (byte) (low >>> (Long.SIZE - 8 * (i + 1)));
+    }
+    return new BigInteger(bytes);
+  }
+
+  public BigInteger toBigInteger() {
+    return toBigInteger(high, low);
+  }
+
+  @Override
+  public int intValue() {
+    return (int) low;
+  }
+
+  @Override
+  public long longValue() {
+    return low;
+  }
+
+  @Override
+  public float floatValue() {
+    return toBigInteger().floatValue();
+  }
+
+  @Override
+  public double doubleValue() {
+    return toBigInteger().doubleValue();
+  }
+
+  @Override
+  public String toString() {
+    return toBigInteger().toString();
+  }
+}
@@ -35,6 +35,7 @@ import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 import som.compiler.MixinDefinition.SlotDefinition;
+import som.interpreter.actors.Actor;
 import som.interpreter.objectstorage.ClassFactory;
 import som.interpreter.objectstorage.ObjectLayout;
 import som.interpreter.objectstorage.StorageLocation;
@@ -52,16 +53,40 @@ public abstract class SObject extends SObjectWithClass {
 
   // TODO: when we got the possibility that we can hint to the compiler that a
   // read is from a final field, we should remove this
-  public static final class SImmutableObject extends SObject {
+  /**
+   * Immutable object with inlined storage for one primitive and one object
+   * field. Objects with more slots use one of the subclasses, which add
+   * inlined fields up to {@link #NUM_OBJECT_FIELDS}. The subclasses mirror
+   * the ones of {@link SMutableObject}, so that both have the same field
+   * offsets.
+   */
+  public static class SImmutableObject extends SObject {
+
+    /** Allocates an object with as many inlined fields as the layout needs. */
+    public static SImmutableObject create(final SClass instanceClass,
+        final ClassFactory factory, final ObjectLayout layout) {
+      switch (numberOfInlinedFieldsFor(layout)) {
+        case 1:
+          return new SImmutableObject(instanceClass, factory, layout);
+        case 2:
+          return new SImmutableObject2(instanceClass, factory, layout);
+        case 3:
+          return new SImmutableObject3(instanceClass, factory, layout);
+        case 4:
+          return new SImmutableObject4(instanceClass, factory, layout);
+        default:
+          return new SImmutableObject5(instanceClass, factory, layout);
+      }
+    }
 
-    public SImmutableObject(final SClass instanceClass, final ClassFactory classGroup,
+    protected SImmutableObject(final SClass instanceClass, final ClassFactory classGroup,
         final ObjectLayout layout) {
       super(instanceClass, classGroup, layout);
-      field1 = field2 = field3 = field4 = field5 = Nil.nilObject;
+      field1 = Nil.nilObject;
       isValue = instanceClass.declaredAsValue();
     }
 
-    public SImmutableObject(final boolean incompleteDefinition,
+    protected SImmutableObject(final boolean incompleteDefinition,
         final boolean isKernelObj) {
       super(incompleteDefinition);
       assert isKernelObj;
@@ -71,34 +96,30 @@ public abstract class SObject extends SObjectWithClass {
     /**
      * Copy constructor.
      */
-    private SImmutableObject(final SImmutableObject old) {
+    protected SImmutableObject(final SImmutableObject old) {
       super(old);
       this.primField1 = old.primField1;
-      this.primField2 = old.primField2;
-      this.primField3 = old.primField3;
-      this.primField4 = old.primField4;
-      this.primField5 = old.primField5;
       this.isValue = old.isValue;
     }
 
-    @CompilationFinal protected long primField1;
-    @CompilationFinal protected long primField2;
-    @CompilationFinal protected long primField3;
-    @CompilationFinal protected long primField4;
-    @CompilationFinal protected long primField5;
-
-    @CompilationFinal public Object field1;
-    @CompilationFinal public Object field2;
-    @CompilationFinal public Object field3;
-    @CompilationFinal public Object field4;
-    @CompilationFinal public Object field5;
+    @CompilationFinal protected long   primField1;
+    @CompilationFinal protected Object field1;
 
     @CompilationFinal protected boolean isValue;
 
+    // this field exists to keep the layouts in sync with SMutableObject,
+    // which records its owner, see isValueOfSImmutableObjectSync
+    @SuppressWarnings("unused") private Object ownerOfSMutableObjectSync;
+
     @Override
     protected void resetFields() {
-      field1 = field2 = field3 = field4 = field5 = null;
-      primField1 = primField2 = primField3 = primField4 = primField5 = Long.MIN_VALUE;
+      field1 = null;
+      primField1 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 1;
     }
 
     @Override
@@ -106,6 +127,11 @@ public abstract class SObject extends SObjectWithClass {
       return isValue;
     }
 
+    @Override
+    public boolean isLocal() {
+      return false;
+    }
+
     @Override
     public SObject cloneBasics() {
       assert !isValue : "There should not be any need to clone a value";
@@ -113,47 +139,230 @@ public abstract class SObject extends SObjectWithClass {
     }
   }
 
-  public static final class SMutableObject extends SObject {
-    private long primField1;
-    private long primField2;
-    private long primField3;
-    private long primField4;
-    private long primField5;
+  public static class SImmutableObject2 extends SImmutableObject {
+    @CompilationFinal protected long   primField2;
+    @CompilationFinal protected Object field2;
+
+    protected SImmutableObject2(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field2 = Nil.nilObject;
+    }
+
+    protected SImmutableObject2(final boolean incompleteDefinition,
+        final boolean isKernelObj) {
+      super(incompleteDefinition, isKernelObj);
+    }
+
+    protected SImmutableObject2(final SImmutableObject2 old) {
+      super(old);
+      this.primField2 = old.primField2;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field2 = null;
+      primField2 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 2;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      assert !isValue : "There should not be any need to clone a value";
+      return new SImmutableObject2(this);
+    }
+  }
+
+  public static class SImmutableObject3 extends SImmutableObject2 {
+    @CompilationFinal protected long   primField3;
+    @CompilationFinal protected Object field3;
 
+    protected SImmutableObject3(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field3 = Nil.nilObject;
+    }
+
+    protected SImmutableObject3(final boolean incompleteDefinition,
+        final boolean isKernelObj) {
+      super(incompleteDefinition, isKernelObj);
+    }
+
+    protected SImmutableObject3(final SImmutableObject3 old) {
+      super(old);
+      this.primField3 = old.primField3;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field3 = null;
+      primField3 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 3;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      assert !isValue : "There should not be any need to clone a value";
+      return new SImmutableObject3(this);
+    }
+  }
+
+  public static class SImmutableObject4 extends SImmutableObject3 {
+    @CompilationFinal protected long   primField4;
+    @CompilationFinal protected Object field4;
+
+    protected SImmutableObject4(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field4 = Nil.nilObject;
+    }
+
+    protected SImmutableObject4(final boolean incompleteDefinition,
+        final boolean isKernelObj) {
+      super(incompleteDefinition, isKernelObj);
+    }
+
+    protected SImmutableObject4(final SImmutableObject4 old) {
+      super(old);
+      this.primField4 = old.primField4;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field4 = null;
+      primField4 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 4;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      assert !isValue : "There should not be any need to clone a value";
+      return new SImmutableObject4(this);
+    }
+  }
+
+  public static final class SImmutableObject5 extends SImmutableObject4 {
+    @CompilationFinal protected long   primField5;
+    @CompilationFinal protected Object field5;
+
+    protected SImmutableObject5(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout) {
+      super(instanceClass, factory, layout);
+      field5 = Nil.nilObject;
+    }
+
+    public SImmutableObject5(final boolean incompleteDefinition, final boolean isKernelObj) {
+      super(incompleteDefinition, isKernelObj);
+    }
+
+    protected SImmutableObject5(final SImmutableObject5 old) {
+      super(old);
+      this.primField5 = old.primField5;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field5 = null;
+      primField5 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 5;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      assert !isValue : "There should not be any need to clone a value";
+      return new SImmutableObject5(this);
+    }
+  }
+
+  /**
+   * Mutable object with inlined storage for one primitive and one object
+   * field. Objects with more slots use one of the subclasses.
+   *
+   * <p>
+   * On a 64-bit JDK 8 with compressed oops, an {@code SMutableObject} takes
+   * 56 bytes, and {@code SMutableObject2} to {@code SMutableObject5} take 72,
+   * 80, 96, and 104 bytes.
+   */
+  public static class SMutableObject extends SObject {
+
+    /** Allocates an object with as many inlined fields as the layout needs. */
+    public static SMutableObject create(final SClass instanceClass,
+        final ClassFactory factory, final ObjectLayout layout, final Actor owner) {
+      switch (numberOfInlinedFieldsFor(layout)) {
+        case 1:
+          return new SMutableObject(instanceClass, factory, layout, owner);
+        case 2:
+          return new SMutableObject2(instanceClass, factory, layout, owner);
+        case 3:
+          return new SMutableObject3(instanceClass, factory, layout, owner);
+        case 4:
+          return new SMutableObject4(instanceClass, factory, layout, owner);
+        default:
+          return new SMutableObject5(instanceClass, factory, layout, owner);
+      }
+    }
+
+    private long   primField1;
     private Object field1;
-    private Object field2;
-    private Object field3;
-    private Object field4;
-    private Object field5;
 
     // this field exists because HotSpot reorders fields, and we need to keep
     // the layouts in sync to avoid having to manage different offsets for
     // SMutableObject and SImmuableObject
     @SuppressWarnings("unused") private boolean isValueOfSImmutableObjectSync;
 
-    public SMutableObject(final SClass instanceClass, final ClassFactory factory,
-        final ObjectLayout layout) {
+    /**
+     * The actor that created the object, or null, if the object was created
+     * outside of an actor.
+     */
+    private final Actor owner;
+
+    protected SMutableObject(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout, final Actor owner) {
       super(instanceClass, factory, layout);
-      field1 = field2 = field3 = field4 = field5 = Nil.nilObject;
+      field1 = Nil.nilObject;
+      this.owner = owner;
     }
 
-    public SMutableObject(final boolean incompleteDefinition) {
+    protected SMutableObject(final boolean incompleteDefinition) {
       super(incompleteDefinition);
+      owner = null;
     }
 
     protected SMutableObject(final SMutableObject old) {
       super(old);
       this.primField1 = old.primField1;
-      this.primField2 = old.primField2;
-      this.primField3 = old.primField3;
-      this.primField4 = old.primField4;
-      this.primField5 = old.primField5;
+      this.owner = old.owner;
     }
 
     @Override
     protected void resetFields() {
-      field1 = field2 = field3 = field4 = field5 = null;
-      primField1 = primField2 = primField3 = primField4 = primField5 = Long.MIN_VALUE;
+      field1 = null;
+      primField1 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 1;
     }
 
     @Override
@@ -161,107 +370,162 @@ public abstract class SObject extends SObjectWithClass {
       return false;
     }
 
+    @Override
+    public boolean isLocal() {
+      return owner != null && owner.ownsLocally();
+    }
+
     @Override
     public SObject cloneBasics() {
       return new SMutableObject(this);
     }
+  }
 
-    public SMutableObject shallowCopy() {
-      SMutableObject copy = new SMutableObject(true);
-      copy.primField1 = primField1;
-      copy.primField2 = primField2;
-      copy.primField3 = primField3;
-      copy.primField4 = primField4;
-      copy.primField5 = primField5;
+  public static class SMutableObject2 extends SMutableObject {
+    private long   primField2;
+    private Object field2;
 
-      copy.classGroup = classGroup;
-      copy.clazz = clazz;
+    protected SMutableObject2(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout, final Actor owner) {
+      super(instanceClass, factory, layout, owner);
+      field2 = Nil.nilObject;
+    }
 
-      copy.objectLayout = objectLayout;
-      copy.primitiveUsedMap = primitiveUsedMap;
+    protected SMutableObject2(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
 
-      copy.field1 = field1;
-      copy.field2 = field2;
-      copy.field3 = field3;
-      copy.field4 = field4;
-      copy.field5 = field5;
+    protected SMutableObject2(final SMutableObject2 old) {
+      super(old);
+      this.primField2 = old.primField2;
+    }
 
-      if (extensionPrimFields != null) {
-        copy.extensionPrimFields = extensionPrimFields.clone();
-      }
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field2 = null;
+      primField2 = Long.MIN_VALUE;
+    }
 
-      if (extensionObjFields != null) {
-        copy.extensionObjFields = extensionObjFields.clone();
-      }
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 2;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject2(this);
+    }
+  }
+
+  public static class SMutableObject3 extends SMutableObject2 {
+    private long   primField3;
+    private Object field3;
+
+    protected SMutableObject3(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout, final Actor owner) {
+      super(instanceClass, factory, layout, owner);
+      field3 = Nil.nilObject;
+    }
+
+    protected SMutableObject3(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
 
-      return copy;
+    protected SMutableObject3(final SMutableObject3 old) {
+      super(old);
+      this.primField3 = old.primField3;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field3 = null;
+      primField3 = Long.MIN_VALUE;
     }
 
-    public boolean txEquals(final SMutableObject o) {
-      // TODO: we actually need to take the object layout into account,
-      // iff we want to ignore class slot stuff...
-      // might be easier to just handle those
-      return o.primField1 == primField1 &&
-          o.primField2 == primField2 &&
-          o.primField3 == primField3 &&
-          o.primField4 == primField4 &&
-          o.primField5 == primField5 &&
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 3;
+    }
 
-          o.classGroup == classGroup && // TODO: should not be necessary
-          o.clazz == clazz && // TODO: should not be necessary
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject3(this);
+    }
+  }
 
-          o.primitiveUsedMap == primitiveUsedMap && // TODO: necessary?
-          Arrays.equals(o.extensionPrimFields, extensionPrimFields) &&
+  public static class SMutableObject4 extends SMutableObject3 {
+    private long   primField4;
+    private Object field4;
 
-          txMutObjLocEquals(o);
+    protected SMutableObject4(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout, final Actor owner) {
+      super(instanceClass, factory, layout, owner);
+      field4 = Nil.nilObject;
     }
 
-    private boolean txMutObjLocEquals(final SMutableObject o) {
-      EconomicMap<SlotDefinition, StorageLocation> oLocs =
-          o.objectLayout.getStorageLocations();
-      EconomicMap<SlotDefinition, StorageLocation> locs = objectLayout.getStorageLocations();
+    protected SMutableObject4(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
 
-      MapCursor<SlotDefinition, StorageLocation> e = locs.getEntries();
-      while (e.advance()) {
-        // need to ignore mutators and class slots
-        if (e.getKey().getClass() == SlotDefinition.class &&
-            e.getValue().read(this) != oLocs.get(e.getKey()).read(o)) {
-          return false;
-        }
-      }
-      return true;
+    protected SMutableObject4(final SMutableObject4 old) {
+      super(old);
+      this.primField4 = old.primField4;
     }
 
-    public void txSet(final SMutableObject wc) {
-      primField1 = wc.primField1;
-      primField2 = wc.primField2;
-      primField3 = wc.primField3;
-      primField4 = wc.primField4;
-      primField5 = wc.primField5;
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field4 = null;
+      primField4 = Long.MIN_VALUE;
+    }
 
-      classGroup = wc.classGroup; // TODO: should not be necessary
-      clazz = wc.clazz; // TODO: should not be necessary
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 4;
+    }
 
-      objectLayout = wc.objectLayout;
-      primitiveUsedMap = wc.primitiveUsedMap;
-      extensionPrimFields = wc.extensionPrimFields;
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject4(this);
+    }
+  }
+
+  public static final class SMutableObject5 extends SMutableObject4 {
+    private long   primField5;
+    private Object field5;
 
-      txSetMutObjLoc(wc);
+    protected SMutableObject5(final SClass instanceClass, final ClassFactory factory,
+        final ObjectLayout layout, final Actor owner) {
+      super(instanceClass, factory, layout, owner);
+      field5 = Nil.nilObject;
     }
 
-    /** Only set the mutable slots. */
-    private void txSetMutObjLoc(final SMutableObject wc) {
-      EconomicMap<SlotDefinition, StorageLocation> oLocs =
-          wc.objectLayout.getStorageLocations();
+    public SMutableObject5(final boolean incompleteDefinition) {
+      super(incompleteDefinition);
+    }
 
-      MapCursor<SlotDefinition, StorageLocation> e = oLocs.getEntries();
-      while (e.advance()) {
-        // need to ignore mutators and class slots
-        if (e.getKey().getClass() == SlotDefinition.class) {
-          Object val = e.getValue().read(wc);
-          this.writeSlot(e.getKey(), val);
-        }
-      }
+    protected SMutableObject5(final SMutableObject5 old) {
+      super(old);
+      this.primField5 = old.primField5;
+    }
+
+    @Override
+    protected void resetFields() {
+      super.resetFields();
+      field5 = null;
+      primField5 = Long.MIN_VALUE;
+    }
+
+    @Override
+    protected int getNumberOfInlinedFields() {
+      return 5;
+    }
+
+    @Override
+    public SObject cloneBasics() {
+      return new SMutableObject5(this);
     }
   }
 
@@ -316,8 +580,27 @@ public abstract class SObject extends SObjectWithClass {
    */
   public abstract SObject cloneBasics();
 
+  /**
+   * A local object is reachable only from the current thread. Its layout can
+   * be changed without stopping the other threads.
+   */
+  public abstract boolean isLocal();
+
+  /**
+   * Objects are allocated with only as many inlined fields as their layout
+   * needs, because the number of slots of a class does not change.
+   * Additional slots are stored in the extension arrays.
+   */
+  protected static int numberOfInlinedFieldsFor(final ObjectLayout layout) {
+    return Math.max(1, Math.min(layout.getNumberOfFields(), NUM_OBJECT_FIELDS));
+  }
+
+  /** @return the number of primitive and of object fields inlined in the object */
+  protected abstract int getNumberOfInlinedFields();
+
   private void setLayoutInitially(final ObjectLayout layout) {
     CompilerAsserts.partialEvaluationConstant(layout);
+    assert numberOfInlinedFieldsFor(layout) <= getNumberOfInlinedFields();
     objectLayout = layout;
     extensionPrimFields = getExtendedPrimStorage(layout);
     extensionObjFields = getExtendedObjectStorage(layout);
@@ -424,6 +707,7 @@ public abstract class SObject extends SObjectWithClass {
 
     EconomicMap<SlotDefinition, Object> fieldValues = getAllFields();
 
+    assert numberOfInlinedFieldsFor(layoutAtClass) <= getNumberOfInlinedFields();
     objectLayout = layoutAtClass;
     extensionPrimFields = getExtendedPrimStorage(layoutAtClass);
     extensionObjFields = getExtendedObjectStorage(layoutAtClass);
@@ -5,6 +5,8 @@ import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import som.interpreter.objectstorage.ObjectTransitionSafepoint;
+import som.interpreter.objectstorage.ObjectTransitionSafepoint.ThreadState;
 import som.vm.Activity;
 import som.vm.VmSettings;
 import tools.TraceData;
@@ -29,6 +31,8 @@ public abstract class TracingActivityThread extends ForkJoinWorkerThread {
 
   protected ConcurrentEntityScope topEntity;
 
+  private final ThreadState safepointState;
+
   private static class ConcurrentEntityScope {
     private final EntityType            type;
     private final ConcurrentEntityScope next;
@@ -51,10 +55,15 @@ public abstract class TracingActivityThread extends ForkJoinWorkerThread {
       traceBuffer = null;
     }
     setName(getClass().getSimpleName() + "-" + threadId);
+    safepointState = new ThreadState();
   }
 
   public abstract Activity getActivity();
 
+  public final ThreadState getSafepointState() {
+    return safepointState;
+  }
+
   public final boolean isStepping(final SteppingType type) {
     if (steppingStrategy == null) {
       return false;
@@ -109,6 +118,7 @@ public abstract class TracingActivityThread extends ForkJoinWorkerThread {
   @Override
   protected void onStart() {
     super.onStart();
+    ObjectTransitionSafepoint.INSTANCE.registerThread(safepointState);
     if (VmSettings.ACTOR_TRACING) {
       traceBuffer.init(ActorExecutionTrace.getEmptyBuffer(), threadId);
       ActorExecutionTrace.registerThread(this);
@@ -121,6 +131,7 @@ public abstract class TracingActivityThread extends ForkJoinWorkerThread {
       traceBuffer.returnBuffer();
       ActorExecutionTrace.unregisterThread(this);
     }
+    ObjectTransitionSafepoint.INSTANCE.unregisterThread(safepointState);
     super.onTermination(exception);
   }
 
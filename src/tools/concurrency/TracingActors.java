@@ -4,13 +4,13 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ForkJoinPool;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import som.Output;
 import som.VM;
 import som.interpreter.actors.Actor;
+import som.interpreter.actors.ActorScheduler;
 import som.interpreter.actors.EventualMessage;
 import som.interpreter.actors.EventualMessage.PromiseMessage;
 import som.interpreter.actors.SPromise.SReplayPromise;
@@ -119,7 +119,7 @@ public class TracingActors {
 
     @Override
     @TruffleBoundary
-    public synchronized void send(final EventualMessage msg, final ForkJoinPool actorPool) {
+    public synchronized void send(final EventualMessage msg, final ActorScheduler actorPool) {
       assert msg.getTarget() == this;
 
       if (firstMessage == null) {
@@ -135,6 +135,18 @@ public class TracingActors {
       }
     }
 
+    /**
+     * Messages are sent individually, to check for each whether it is
+     * the expected one.
+     */
+    @Override
+    @TruffleBoundary
+    public void sendAll(final EventualMessage[] msgs, final ActorScheduler actorPool) {
+      for (EventualMessage msg : msgs) {
+        send(msg, actorPool);
+      }
+    }
+
     /**
      * Prints a list of expected Messages and remaining mailbox content.
      *
@@ -277,8 +289,12 @@ public class TracingActors {
         return todo;
       }
 
+      /**
+       * Replay executes all messages that can be processed in one go,
+       * the quantum is not considered.
+       */
       @Override
-      protected void processCurrentMessages(final ActorProcessingThread currentThread,
+      protected boolean processCurrentMessages(final ActorProcessingThread currentThread,
           final WebDebugger dbg) {
         assert actor instanceof ReplayActor;
         assert size > 0;
@@ -293,6 +309,7 @@ public class TracingActors {
         }
 
         currentThread.createdMessages += todo.size();
+        return true;
       }
     }
   }
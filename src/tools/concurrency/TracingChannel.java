@@ -1,7 +1,6 @@
 package tools.concurrency;
 
-import java.util.concurrent.SynchronousQueue;
-
+import som.interpreter.processes.ChannelCell;
 import som.interpreter.processes.SChannel;
 import tools.debugger.entities.ReceiveOp;
 import tools.debugger.entities.SendOp;
@@ -11,7 +10,8 @@ public final class TracingChannel extends SChannel {
   protected final long channelId;
   protected int        messageId;
 
-  public TracingChannel() {
+  public TracingChannel(final int capacity) {
+    super(capacity);
     channelId = TracingActivityThread.newEntityId();
     messageId = 0;
   }
@@ -22,8 +22,7 @@ public final class TracingChannel extends SChannel {
   }
 
   public static final class TracingChannelInput extends SChannelInput {
-    public TracingChannelInput(final SynchronousQueue<Object> cell,
-        final SChannel channel) {
+    public TracingChannelInput(final ChannelCell cell, final SChannel channel) {
       super(cell, channel);
     }
 
@@ -36,11 +35,30 @@ public final class TracingChannel extends SChannel {
         ActorExecutionTrace.receiveOperation(ReceiveOp.CHANNEL_RCV, current.channelId);
       }
     }
+
+    /** Reads a single value, so that each read is traced individually. */
+    @Override
+    public int readInto(final Object[] values) throws InterruptedException {
+      if (values.length == 0) {
+        return 0;
+      }
+      values[0] = read();
+      return 1;
+    }
+
+    @Override
+    public Object poll() {
+      Object value = super.poll();
+      if (value != null) {
+        ActorExecutionTrace.receiveOperation(ReceiveOp.CHANNEL_RCV,
+            ((TracingChannel) channel).channelId);
+      }
+      return value;
+    }
   }
 
   public static final class TracingChannelOutput extends SChannelOutput {
-    public TracingChannelOutput(final SynchronousQueue<Object> cell,
-        final SChannel channel) {
+    public TracingChannelOutput(final ChannelCell cell, final SChannel channel) {
       super(cell, channel);
     }
 
@@ -56,5 +74,13 @@ public final class TracingChannel extends SChannel {
             SendOp.CHANNEL_SEND, current.messageId, current.channelId);
       }
     }
+
+    /** Writes the values one by one, so that each write is traced individually. */
+    @Override
+    public void writeAll(final Object[] values) throws InterruptedException {
+      for (Object v : values) {
+        write(v);
+      }
+    }
   }
 }
@@ -0,0 +1,78 @@
+package som.interpreter.actors;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import som.interpreter.actors.Actor.ExecAllMessages;
+import som.interpreter.actors.ActorScheduler.AffinityScheduler;
+import som.interpreter.actors.ActorScheduler.AffinityScheduler.Worker;
+
+
+public class AffinitySchedulerTests {
+
+  private ForkJoinPool      pool;
+  private AffinityScheduler scheduler;
+
+  @Before
+  public void createScheduler() {
+    pool = new ForkJoinPool(3);
+    scheduler = new AffinityScheduler(pool);
+  }
+
+  @After
+  public void shutdownPool() {
+    pool.shutdownNow();
+  }
+
+  /** Schedules like {@link AffinityScheduler#schedule}, on busy workers. */
+  private Worker schedule(final Worker lastWorker, final Worker current) {
+    Worker target = scheduler.selectWorker(lastWorker, current);
+    target.enqueue(new ExecAllMessages(null, null));
+    return target;
+  }
+
+  @Test
+  public void testPingPongStaysOnLastWorkers() {
+    Worker ping = scheduler.getWorker(0);
+    Worker pong = scheduler.getWorker(1);
+    assertTrue(ping.tryActivate());
+    assertTrue(pong.tryActivate());
+
+    // the actor on pong sends to the actor that executed last on ping
+    Worker target = schedule(ping, pong);
+    assertSame(ping, target);
+    assertFalse(AffinityScheduler.needsIdleWorker(target));
+
+    // and the reply goes to the last worker of the sender
+    target = schedule(pong, ping);
+    assertSame(pong, target);
+    assertFalse(AffinityScheduler.needsIdleWorker(target));
+  }
+
+  @Test
+  public void testIdleLastWorkerHandsOffToSender() {
+    Worker last = scheduler.getWorker(0);
+    Worker current = scheduler.getWorker(1);
+    assertTrue(current.tryActivate());
+
+    assertSame(current, scheduler.selectWorker(last, current));
+  }
+
+  @Test
+  public void testBacklogWakesIdleWorker() {
+    Worker busy = scheduler.getWorker(0);
+    Worker current = scheduler.getWorker(1);
+    assertTrue(busy.tryActivate());
+    assertTrue(current.tryActivate());
+
+    assertFalse(AffinityScheduler.needsIdleWorker(schedule(busy, current)));
+    assertTrue(AffinityScheduler.needsIdleWorker(schedule(busy, current)));
+  }
+}
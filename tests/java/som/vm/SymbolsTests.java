@@ -0,0 +1,42 @@
+package som.vm;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+
+import som.tests.ParallelHelper;
+import som.vmobjects.SSymbol;
+
+
+public class SymbolsTests {
+
+  @Test
+  public void testSymbolForReturnsSameSymbol() {
+    SSymbol sym = Symbols.symbolFor("symbolsTest:with:");
+    assertSame(sym, Symbols.symbolFor(new String("symbolsTest:with:")));
+    assertEquals("symbolsTest:with:", sym.getString());
+  }
+
+  @Test
+  public void testConcurrentInterning() throws InterruptedException {
+    final int numSymbols = 10_000;
+    ConcurrentHashMap<String, SSymbol> seen = new ConcurrentHashMap<>();
+
+    ParallelHelper.executeNTimesInParallel(() -> {
+      for (int i = 0; i < numSymbols; i++) {
+        String str = "concurrentSymbol" + i;
+        SSymbol sym = Symbols.symbolFor(str);
+        SSymbol other = seen.putIfAbsent(str, sym);
+        if (other != null) {
+          assertSame(other, sym);
+        }
+        assertEquals(str, sym.getString());
+      }
+    });
+
+    assertEquals(numSymbols, seen.size());
+  }
+}